@@ -0,0 +1,133 @@
+package com.example.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.SocialMediaApp;
+import com.example.service.AccountService;
+import com.example.service.PasswordHasher;
+
+/**
+ * Starts the application without a web server against its own in-memory database, so benchmarks can drive 
+ * the service layer directly and seed data in bulk through JDBC.
+ */
+public class BenchmarkContext implements AutoCloseable {
+
+    /** Epoch time of the oldest seeded message. Seeded messages are one second apart. */
+    public static final long FIRST_TIME_POSTED_EPOCH = 1669947792L;
+    /** account_id of the first account created by seed, above the data.sql fixture accounts. */
+    public static final int FIRST_SEEDED_ACCOUNT_ID = 10001;
+    /** Password of every account created by seed. */
+    public static final String SEEDED_PASSWORD = "password";
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private ConfigurableApplicationContext context;
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Start the application without a web server.
+     * 
+     * @param properties extra application properties, in key=value form. They override application.properties.
+     */
+    public BenchmarkContext(String... properties) {
+        this(WebApplicationType.NONE, properties);
+    }
+
+    /**
+     * @param type WebApplicationType.SERVLET to also start the web server, on the port in server.port
+     * @param properties extra application properties, in key=value form. They override application.properties.
+     */
+    public BenchmarkContext(WebApplicationType type, String... properties) {
+        List<String> args = new ArrayList<>();
+        args.add("--spring.datasource.url=jdbc:h2:mem:bench");
+        args.add("--logging.level.root=WARN");
+        for(String property : properties) {
+            args.add("--" + property);
+        }
+        context = new SpringApplicationBuilder(SocialMediaApp.class)
+            .web(type)
+            .bannerMode(Banner.Mode.OFF)
+            .run(args.toArray(new String[0]));
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * @return int the port the web server listens on, when it was started
+     */
+    public int getPort() {
+        return context.getEnvironment().getProperty("local.server.port", Integer.class);
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    /**
+     * Replace the fixture messages with a generated dataset, inside the database so that even 10M messages load 
+     * in seconds. Account i (0 based) gets account_id FIRST_SEEDED_ACCOUNT_ID + i, username "user" + i and 
+     * password SEEDED_PASSWORD. Message i (1 based) gets message_id i and is posted by account i % accounts, 
+     * one second after message i - 1. The id sequences are moved past the seeded ids and the account lookups 
+     * of AccountService are reloaded.
+     */
+    public void seed(int accounts, int messages) {
+        String password = getBean(PasswordHasher.class).encode(SEEDED_PASSWORD);
+        jdbcTemplate.update("delete from message");
+        jdbcTemplate.update("insert into account (account_id, username, password) "
+            + "select ? + x, 'user' || x, ? from system_range(0, ? - 1)", FIRST_SEEDED_ACCOUNT_ID, password, accounts);
+        jdbcTemplate.update("insert into message (message_id, posted_by, message_text, time_posted_epoch) "
+            + "select x, ? + mod(x, ?), 'benchmark message ' || x, ? + x from system_range(1, ?)",
+            FIRST_SEEDED_ACCOUNT_ID, accounts, FIRST_TIME_POSTED_EPOCH, messages);
+        jdbcTemplate.update("delete from account_stats");
+        jdbcTemplate.update("insert into account_stats (account_id, message_count, latest_message_id, latest_time_posted_epoch) "
+            + "select a.account_id, (select count(*) from message m where m.posted_by = a.account_id), l.message_id, "
+            + "l.time_posted_epoch from account a left join message l on l.message_id = (select message_id from message m "
+            + "where m.posted_by = a.account_id order by time_posted_epoch desc, message_id fetch first 1 row only)");
+        jdbcTemplate.execute("alter sequence account_seq restart with " + (FIRST_SEEDED_ACCOUNT_ID + accounts));
+        jdbcTemplate.execute("alter sequence message_seq restart with " + (messages + 1));
+        getBean(AccountService.class).reloadAccounts();
+    }
+
+    /**
+     * Insert an account with a fixed account_id.
+     */
+    public void insertAccount(int account_id, String username, String password) {
+        jdbcTemplate.update("insert into account (account_id, username, password) values (?, ?, ?)", 
+            account_id, username, password);
+        jdbcTemplate.update("insert into account_stats (account_id, message_count) values (?, 0)", account_id);
+    }
+
+    /**
+     * Insert count messages posted by one account. Message i (0 based) gets message_id firstMessageId + i and 
+     * time_posted_epoch FIRST_TIME_POSTED_EPOCH + i, so the last one inserted is the newest.
+     */
+    public void insertMessages(int posted_by, int firstMessageId, int count) {
+        String sql = "insert into message (message_id, posted_by, message_text, time_posted_epoch) values (?, ?, ?, ?)";
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for(int i = 0; i < count; i++) {
+            batch.add(new Object[] { firstMessageId + i, posted_by, "benchmark message " + i, FIRST_TIME_POSTED_EPOCH + i });
+            if(batch.size() == INSERT_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if(!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.bench;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.entity.Message;
+import com.example.json.MessageSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * CPU cost of gzipping a message page, as Tomcat does with server.compression, against the cost of producing it.
+ * The bandwidth side, the serialized and gzipped size of each page, is printed once per page size:
+ *
+ *   mvn -Pbench compile exec:exec -Dbench.args="CompressionBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CompressionBenchmark {
+
+    private static final String[] WORDS = {
+        "the", "a", "new", "post", "today", "about", "coffee", "weather", "code", "release", "weekend", "team",
+        "meeting", "launch", "great", "bug", "fixed", "finally", "anyone", "else", "thinking", "of", "lunch", "java"
+    };
+
+    @Param({"10", "100", "1000", "10000"})
+    private int pageSize;
+
+    private List<Message> page;
+    private ObjectMapper objectMapper;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        page = new ArrayList<>(pageSize);
+        for(int i = 0; i < pageSize; i++) {
+            StringBuilder text = new StringBuilder();
+            for(int words = 3 + random.nextInt(20); words > 0; words--) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            page.add(new Message(100000 - i, BenchmarkContext.FIRST_SEEDED_ACCOUNT_ID + random.nextInt(1000),
+                text.toString().trim(), BenchmarkContext.FIRST_TIME_POSTED_EPOCH + 100000 - i));
+        }
+        objectMapper = new ObjectMapper().registerModule(new SimpleModule()
+            .addSerializer(Message.class, new MessageSerializer()));
+        json = objectMapper.writeValueAsBytes(page);
+        int gzipped = gzip().length;
+        System.out.printf("%n%d messages: %d bytes of JSON, %d bytes gzipped (%.1f%%)%n",
+            pageSize, json.length, gzipped, 100.0 * gzipped / json.length);
+    }
+
+    /**
+     * Serializing the page, the work done for every response whether or not it is compressed.
+     */
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    /**
+     * Gzipping the serialized page at the default level, as Tomcat's GzipOutputFilter does.
+     */
+    @Benchmark
+    public byte[] gzip() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+        try(OutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(json);
+        }
+        return compressed.toByteArray();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.example.json.AccountSerializer;
+import com.example.json.MessageSerializer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+/**
+ * Serialization of a 10k message page, as written by GET /messages?limit=..., with Jackson's reflective bean
+ * serialization and with MessageSerializer. Output goes to a discarding stream so only serialization is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JsonSerializationBenchmark {
+
+    private static final int PAGE_SIZE = 10000;
+
+    private List<Message> page;
+    private ObjectWriter reflective;
+    private ObjectWriter serializer;
+    private OutputStream discard;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        page = new ArrayList<>(PAGE_SIZE);
+        for(int i = 1; i <= PAGE_SIZE; i++) {
+            page.add(new Message(i, BenchmarkContext.FIRST_SEEDED_ACCOUNT_ID + i % 100, "benchmark message " + i,
+                BenchmarkContext.FIRST_TIME_POSTED_EPOCH + i));
+        }
+        // the discarding stream is reused across invocations, so the writers must not close it
+        reflective = new ObjectMapper().writerFor(Object.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        serializer = new ObjectMapper().registerModule(new SimpleModule()
+                .addSerializer(Message.class, new MessageSerializer())
+                .addSerializer(Account.class, new AccountSerializer()))
+            .writerFor(Object.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        discard = OutputStream.nullOutputStream();
+    }
+
+    @Benchmark
+    public void reflective() throws IOException {
+        reflective.writeValue(discard, page);
+    }
+
+    @Benchmark
+    public void serializer() throws IOException {
+        serializer.writeValue(discard, page);
+    }
+}
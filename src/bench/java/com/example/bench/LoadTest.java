@@ -0,0 +1,389 @@
+package com.example.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.WebApplicationType;
+
+import com.example.service.MessagePage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Reproducible HTTP load test of every SocialMediaController route with a read-heavy mix.
+ *
+ * A fixed number of simulated clients (-concurrency) each send one request at a time, chosen at random by route
+ * weight, for a warmup and then a measured period. Latency is recorded per route in HdrHistogram recorders, and
+ * throughput and p50/p99/p99.9 latency are printed and written as JSON (-out) together with the options used,
+ * so runs can be compared. Requests are sent asynchronously, so thousands of clients do not need thousands of threads.
+ * Errors are also counted by cause, the unexpected status code or the exception of the failed request, across routes.
+ *
+ * By default the application is started in this JVM on a random port and seeded with -messages messages
+ * (see BenchmarkContext.seed). To keep the load generator and the server apart, start the server with -serve
+ * in one JVM and point the load test at it with -url in another; both must use the same -messages.
+ *
+ * Options (all optional): -url, -serve, -messages 100000, -concurrency 32, -warmup 10, -duration 30 (seconds),
+ * -timeout 30 (seconds per request, including the connect; a timed out request is an error), -reads servlet
+ * (or reactive, to send the message reads to the ReactiveMessageController paths), -seed 42,
+ * -out target/load-result.json, -mix getMessage=40,getAccountMessages=25,... and any application property as
+ * -Dkey=value when the server runs in this JVM.
+ *
+ * Every client holds a connection, and a server in the same JVM holds the other end of it, so an in-process run
+ * needs two file descriptors per client. Beyond about half of ulimit -n, connections fail with "Too many open files"
+ * on both sides; use -serve and -url for such concurrency.
+ */
+public class LoadTest {
+
+    /** The routes driven by the load test, with their default share of requests. */
+    enum Route {
+        getMessage(40, "GET /messages/{message_id}"),
+        getAccountMessages(22, "GET /accounts/{account_id}/messages"),
+        getMessages(10, "GET /messages"),
+        postMessage(10, "POST /messages"),
+        postMessages(2, "POST /messages/batch"),
+        updateMessage(7, "PATCH /messages/{message_id}"),
+        deleteMessage(2, "DELETE /messages/{message_id}"),
+        login(6, "POST /login"),
+        register(1, "POST /register");
+
+        final int defaultWeight;
+        final String endpoint;
+
+        Route(int defaultWeight, String endpoint) {
+            this.defaultWeight = defaultWeight;
+            this.endpoint = endpoint;
+        }
+    }
+
+    private static final int MESSAGES_PER_ACCOUNT = 100;
+    private static final int BATCH_SIZE = 10;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final String url;
+    private final int messages;
+    private final int accounts;
+    private final int concurrency;
+    private final int warmupSeconds;
+    private final int durationSeconds;
+    private final long seed;
+    private final Duration timeout;
+    private final String readPrefix;
+    private final Map<Route, Integer> weights;
+    private final Route[] routeByTicket;
+    private final Map<Route, Recorder> recorders = new LinkedHashMap<>();
+    private final Map<Route, AtomicLong> errors = new LinkedHashMap<>();
+    private final Map<String, LongAdder> errorCauses = new ConcurrentHashMap<>();
+    private final AtomicLong registrations = new AtomicLong();
+    private final HttpClient client;
+    private volatile boolean recording;
+    private volatile long deadline;
+
+    LoadTest(String url, int messages, int concurrency, int warmupSeconds, int durationSeconds, long seed,
+             Duration timeout, String readPrefix, Map<Route, Integer> weights) {
+        this.url = url;
+        this.messages = messages;
+        this.accounts = Math.max(1, messages / MESSAGES_PER_ACCOUNT);
+        this.concurrency = concurrency;
+        this.warmupSeconds = warmupSeconds;
+        this.durationSeconds = durationSeconds;
+        this.seed = seed;
+        this.timeout = timeout;
+        this.readPrefix = readPrefix;
+        this.weights = weights;
+        int tickets = weights.values().stream().mapToInt(Integer::intValue).sum();
+        this.routeByTicket = new Route[tickets];
+        int ticket = 0;
+        for(Map.Entry<Route, Integer> weight : weights.entrySet()) {
+            for(int i = 0; i < weight.getValue(); i++) {
+                routeByTicket[ticket++] = weight.getKey();
+            }
+            recorders.put(weight.getKey(), new Recorder(3));
+            errors.put(weight.getKey(), new AtomicLong());
+        }
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(timeout)
+            .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for(int i = 0; i < args.length; i++) {
+            if(args[i].equals("-serve")) {
+                options.put("serve", "true");
+            }
+            else if(args[i].startsWith("-D")) {
+                String[] property = args[i].substring(2).split("=", 2);
+                options.put("D." + property[0], property.length > 1 ? property[1] : "");
+            }
+            else if(args[i].startsWith("-") && i + 1 < args.length) {
+                options.put(args[i].substring(1), args[++i]);
+            }
+            else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        int messages = Integer.parseInt(options.getOrDefault("messages", "100000"));
+
+        BenchmarkContext server = null;
+        String url = options.get("url");
+        if(url == null) {
+            String[] properties = options.entrySet().stream()
+                .filter(option -> option.getKey().startsWith("D."))
+                .map(option -> option.getKey().substring(2) + "=" + option.getValue())
+                .toArray(String[]::new);
+            String[] serverProperties = new String[properties.length + 2];
+            serverProperties[0] = "server.port=" + options.getOrDefault("port", options.containsKey("serve") ? "8080" : "0");
+            serverProperties[1] = "app.password.iterations=" + options.getOrDefault("iterations", "1000");
+            System.arraycopy(properties, 0, serverProperties, 2, properties.length);
+            server = new BenchmarkContext(WebApplicationType.SERVLET, serverProperties);
+            server.seed(Math.max(1, messages / MESSAGES_PER_ACCOUNT), messages);
+            url = "http://localhost:" + server.getPort();
+            if(options.containsKey("serve")) {
+                System.out.println("Serving " + messages + " messages on " + url);
+                Thread.currentThread().join();
+            }
+        }
+
+        Map<Route, Integer> weights = new LinkedHashMap<>();
+        for(Route route : Route.values()) {
+            weights.put(route, route.defaultWeight);
+        }
+        if(options.containsKey("mix")) {
+            for(String weight : options.get("mix").split(",")) {
+                String[] pair = weight.split("=");
+                weights.put(Route.valueOf(pair[0].trim()), Integer.parseInt(pair[1].trim()));
+            }
+        }
+        weights.values().removeIf(weight -> weight <= 0);
+
+        LoadTest loadTest = new LoadTest(url, messages,
+            Integer.parseInt(options.getOrDefault("concurrency", "32")),
+            Integer.parseInt(options.getOrDefault("warmup", "10")),
+            Integer.parseInt(options.getOrDefault("duration", "30")),
+            Long.parseLong(options.getOrDefault("seed", "42")),
+            Duration.ofSeconds(Long.parseLong(options.getOrDefault("timeout", "30"))),
+            options.getOrDefault("reads", "servlet").equals("reactive") ? "/reactive" : "",
+            weights);
+        try {
+            Map<String, Object> result = loadTest.run();
+            File out = new File(options.getOrDefault("out", "target/load-result.json"));
+            if(out.getParentFile() != null) {
+                out.getParentFile().mkdirs();
+            }
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(out, result);
+            System.out.println("Results written to " + out);
+        }
+        finally {
+            if(server != null) {
+                server.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Run the warmup and the measured period.
+     *
+     * @return Map the options and per route results, ready to be written as JSON
+     */
+    Map<String, Object> run() throws InterruptedException {
+        System.out.println("Load test of " + url + ": " + concurrency + " clients, " + warmupSeconds + "s warmup, "
+            + durationSeconds + "s measured, mix " + weights);
+        long start = System.nanoTime();
+        deadline = start + (warmupSeconds + durationSeconds) * 1_000_000_000L;
+        CountDownLatch finished = new CountDownLatch(concurrency);
+        for(int i = 0; i < concurrency; i++) {
+            Random random = new Random(seed + i);
+            next(random, finished);
+        }
+
+        Thread.sleep(warmupSeconds * 1000L);
+        for(Route route : recorders.keySet()) {
+            recorders.get(route).getIntervalHistogram();
+            errors.get(route).set(0);
+        }
+        errorCauses.clear();
+        recording = true;
+        long measureStart = System.nanoTime();
+        // clients stop after their request in flight at the deadline, which takes at most the request timeout
+        finished.await(timeout.toMillis() + 1000, TimeUnit.MILLISECONDS);
+        double seconds = (System.nanoTime() - measureStart) / 1_000_000_000.0;
+        recording = false;
+        return report(seconds);
+    }
+
+    /** Send one request for a simulated client and, when it completes, the client's next one until the deadline. */
+    private void next(Random random, CountDownLatch finished) {
+        if(System.nanoTime() >= deadline) {
+            finished.countDown();
+            return;
+        }
+        Route route = routeByTicket[random.nextInt(routeByTicket.length)];
+        HttpRequest request = request(route, random);
+        Set<Integer> expected = route == Route.updateMessage ? Set.of(200, 400) : Set.of(200);
+        boolean measured = recording;
+        long sent = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+            if(measured && recording) {
+                recorders.get(route).recordValue(System.nanoTime() - sent);
+                if(failure != null || !expected.contains(response.statusCode())) {
+                    errors.get(route).incrementAndGet();
+                    errorCauses.computeIfAbsent(cause(response, failure), cause -> new LongAdder()).increment();
+                }
+            }
+            next(random, finished);
+        });
+    }
+
+    /** The status code of an unexpected response, or the exception of a request that failed without one. */
+    private static String cause(HttpResponse<?> response, Throwable failure) {
+        if(failure == null) {
+            return "status " + response.statusCode();
+        }
+        while(failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        return failure.getClass().getSimpleName() + (failure.getMessage() == null ? "" : ": " + failure.getMessage());
+    }
+
+    private HttpRequest request(Route route, Random random) {
+        switch(route) {
+            case getMessage:
+                return get(readPrefix + "/messages/" + hotMessageId(random));
+            case getAccountMessages:
+                return get(readPrefix + "/accounts/" + accountId(random) + "/messages?limit=20");
+            case getMessages:
+                return get(readPrefix + "/messages?limit=100&after=" + MessagePage.encodeCursor(random.nextInt(messages)));
+            case postMessage:
+                return send("POST", "/messages", message(random));
+            case postMessages:
+                StringBuilder batch = new StringBuilder("[");
+                for(int i = 0; i < BATCH_SIZE; i++) {
+                    batch.append(i == 0 ? "" : ",").append(message(random));
+                }
+                return send("POST", "/messages/batch", batch.append("]").toString());
+            case updateMessage:
+                return send("PATCH", "/messages/" + messageId(random), "{\"message_text\":\"updated by load test\"}");
+            case deleteMessage:
+                return HttpRequest.newBuilder(URI.create(url + "/messages/" + messageId(random))).timeout(timeout)
+                    .DELETE().build();
+            case login:
+                return send("POST", "/login", "{\"username\":\"user" + random.nextInt(accounts)
+                    + "\",\"password\":\"" + BenchmarkContext.SEEDED_PASSWORD + "\"}");
+            case register:
+                return send("POST", "/register", "{\"username\":\"load" + seed + "-" + registrations.incrementAndGet()
+                    + "\",\"password\":\"" + BenchmarkContext.SEEDED_PASSWORD + "\"}");
+            default:
+                throw new IllegalArgumentException(route.name());
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(url + path)).timeout(timeout).GET().build();
+    }
+
+    private HttpRequest send(String method, String path, String json) {
+        return HttpRequest.newBuilder(URI.create(url + path))
+            .timeout(timeout)
+            .method(method, HttpRequest.BodyPublishers.ofString(json))
+            .header("Content-Type", "application/json")
+            .build();
+    }
+
+    private String message(Random random) {
+        return "{\"posted_by\":" + accountId(random) + ",\"message_text\":\"posted by load test\",\"time_posted_epoch\":"
+            + (BenchmarkContext.FIRST_TIME_POSTED_EPOCH + messages + random.nextInt(messages)) + "}";
+    }
+
+    private int accountId(Random random) {
+        return BenchmarkContext.FIRST_SEEDED_ACCOUNT_ID + random.nextInt(accounts);
+    }
+
+    private int messageId(Random random) {
+        return 1 + random.nextInt(messages);
+    }
+
+    /** Reads are skewed: 80% of them go to the newest 1% of the seeded messages. */
+    private int hotMessageId(Random random) {
+        int hot = Math.max(1, messages / 100);
+        if(random.nextInt(100) < 80) {
+            return messages - random.nextInt(hot);
+        }
+        return messageId(random);
+    }
+
+    private Map<String, Object> report(double seconds) {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("url", url);
+        config.put("messages", messages);
+        config.put("concurrency", concurrency);
+        config.put("warmupSeconds", warmupSeconds);
+        config.put("durationSeconds", durationSeconds);
+        config.put("seed", seed);
+        config.put("timeoutSeconds", timeout.getSeconds());
+        config.put("reads", readPrefix.isEmpty() ? "servlet" : "reactive");
+        config.put("mix", weights);
+
+        Map<String, Object> routes = new LinkedHashMap<>();
+        Histogram total = new Histogram(3);
+        long totalErrors = 0;
+        System.out.println(String.format("%-38s %9s %10s %9s %9s %9s %9s %7s",
+            "endpoint", "requests", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "errors"));
+        for(Map.Entry<Route, Recorder> entry : recorders.entrySet()) {
+            Histogram histogram = entry.getValue().getIntervalHistogram();
+            long routeErrors = errors.get(entry.getKey()).get();
+            total.add(histogram);
+            totalErrors += routeErrors;
+            routes.put(entry.getKey().name(), summary(entry.getKey().endpoint, histogram, routeErrors, seconds));
+        }
+        routes.put("total", summary("all routes", total, totalErrors, seconds));
+        Map<String, Long> causes = new TreeMap<>();
+        errorCauses.forEach((cause, count) -> causes.put(cause, count.sum()));
+        for(Map.Entry<String, Long> cause : causes.entrySet()) {
+            System.out.println(String.format("%9d errors: %s", cause.getValue(), cause.getKey()));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("config", config);
+        result.put("seconds", seconds);
+        result.put("routes", routes);
+        result.put("errorCauses", causes);
+        return result;
+    }
+
+    private static Map<String, Object> summary(String endpoint, Histogram histogram, long errors, double seconds) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("endpoint", endpoint);
+        summary.put("requests", histogram.getTotalCount());
+        summary.put("throughput", histogram.getTotalCount() / seconds);
+        summary.put("p50Millis", histogram.getValueAtPercentile(50) / NANOS_PER_MILLI);
+        summary.put("p99Millis", histogram.getValueAtPercentile(99) / NANOS_PER_MILLI);
+        summary.put("p999Millis", histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI);
+        summary.put("maxMillis", histogram.getMaxValue() / NANOS_PER_MILLI);
+        summary.put("errors", errors);
+        System.out.println(String.format("%-38s %9d %10.1f %9.2f %9.2f %9.2f %9.2f %7d", endpoint,
+            histogram.getTotalCount(), histogram.getTotalCount() / seconds,
+            histogram.getValueAtPercentile(50) / NANOS_PER_MILLI, histogram.getValueAtPercentile(99) / NANOS_PER_MILLI,
+            histogram.getValueAtPercentile(99.9) / NANOS_PER_MILLI, histogram.getMaxValue() / NANOS_PER_MILLI, errors));
+        return summary;
+    }
+}
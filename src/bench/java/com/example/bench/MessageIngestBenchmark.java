@@ -0,0 +1,78 @@
+package com.example.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.dto.BatchItemResult;
+import com.example.entity.Message;
+import com.example.service.MessageService;
+
+/**
+ * Insert throughput of 100 messages posted one at a time (POST /messages) against one POST /messages/batch.
+ * Scores are messages per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MessageIngestBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int ACCOUNT_ID = 9999;
+
+    private BenchmarkContext context;
+    private MessageService messageService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext();
+        // the fixture messages sit in the range the generated ids run through
+        context.getJdbcTemplate().update("delete from message");
+        messageService = context.getBean(MessageService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void singlePosts(Blackhole blackhole) {
+        for(Message message : newMessages()) {
+            blackhole.consume(messageService.postMessage(message));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<BatchItemResult> batchPost() {
+        return messageService.postMessages(newMessages());
+    }
+
+    private static List<Message> newMessages() {
+        List<Message> messages = new ArrayList<>(BATCH_SIZE);
+        for(int i = 0; i < BATCH_SIZE; i++) {
+            messages.add(new Message(ACCOUNT_ID, "benchmark message " + i, BenchmarkContext.FIRST_TIME_POSTED_EPOCH + i));
+        }
+        return messages;
+    }
+}
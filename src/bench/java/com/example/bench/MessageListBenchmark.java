@@ -0,0 +1,66 @@
+package com.example.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.service.MessagePage;
+import com.example.service.MessageService;
+
+/**
+ * Time and allocation per page of the list endpoints, GET /messages and GET /accounts/{account_id}/messages.
+ * Run with the GC profiler to see the bytes allocated per page; divided by the page size that is the cost per row:
+ *
+ *   mvn -Pbench compile exec:exec -Dbench.args="MessageListBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MessageListBenchmark {
+
+    private static final int MESSAGES = 100000;
+    private static final int ACCOUNTS = 100;
+    private static final int PAGE_SIZE = MessageService.DEFAULT_PAGE_SIZE;
+
+    private BenchmarkContext context;
+    private MessageService messageService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext();
+        context.seed(ACCOUNTS, MESSAGES);
+        messageService = context.getBean(MessageService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MessagePage getMessages() {
+        String after = MessagePage.encodeCursor(ThreadLocalRandom.current().nextInt(MESSAGES - PAGE_SIZE));
+        return messageService.getMesssages(after, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public MessagePage getAccountMessages() {
+        int account_id = BenchmarkContext.FIRST_SEEDED_ACCOUNT_ID + ThreadLocalRandom.current().nextInt(ACCOUNTS);
+        return messageService.getAccountMessages(account_id, null, PAGE_SIZE);
+    }
+}
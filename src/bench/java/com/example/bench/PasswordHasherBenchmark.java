@@ -0,0 +1,63 @@
+package com.example.bench;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.service.PasswordHasher;
+
+/**
+ * Password verification throughput for each PBKDF2 cost factor, on the calling thread (matches) and through the 
+ * bounded hashing pool (verify). Scores are verifications per second per benchmark thread; run with -t to see 
+ * how the pool caps concurrent verifications.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PasswordHasherBenchmark {
+
+    private static final String PASSWORD = "password";
+
+    @Param({ "100000", "310000", "600000" })
+    public int iterations;
+
+    private PasswordHasher passwordHasher;
+    private String encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        passwordHasher = new PasswordHasher(iterations, 0, 1024, Duration.ofMinutes(1));
+        encoded = passwordHasher.encode(PASSWORD);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        passwordHasher.shutdown();
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return passwordHasher.matches(PASSWORD, encoded);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return passwordHasher.verify(PASSWORD, encoded);
+    }
+}
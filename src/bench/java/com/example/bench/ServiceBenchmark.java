@@ -0,0 +1,127 @@
+package com.example.bench;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.example.service.AccountService;
+import com.example.service.MessagePage;
+import com.example.service.MessageService;
+
+/**
+ * Service layer hot paths against an embedded H2 seeded with a configurable number of messages (one account 
+ * per 100 messages). The default sizes are 10k and 1M; larger datasets are selected on the command line:
+ * 
+ *   mvn -Pbench compile exec:exec -Dbench.args="ServiceBenchmark -p messages=10000000 -jvmArgsAppend -Xmx8g -rf json -rff target/jmh-result.json"
+ * 
+ * The JSON results (target/jmh-result.json by default) can be kept per commit and compared to track regressions.
+ * Password hashing uses a low PBKDF2 cost here so register and login measure the service path; the hash cost 
+ * itself is measured by PasswordHasherBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ServiceBenchmark {
+
+    private static final int MESSAGES_PER_ACCOUNT = 100;
+    /** First message_id of the messages inserted for deleteMessage to remove, above any generated id. */
+    private static final int FIRST_DELETABLE_ID = 1_000_000_000;
+    private static final int DELETABLE_PER_ITERATION = 200_000;
+
+    @Param({ "10000", "1000000" })
+    public int messages;
+
+    private BenchmarkContext context;
+    private MessageService messageService;
+    private AccountService accountService;
+    private int accounts;
+    private int nextDeletable;
+    private long nextUsername;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext("app.password.iterations=1000");
+        accounts = Math.max(1, messages / MESSAGES_PER_ACCOUNT);
+        context.seed(accounts, messages);
+        messageService = context.getBean(MessageService.class);
+        accountService = context.getBean(AccountService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void insertDeletable() {
+        context.getJdbcTemplate().update("delete from message where message_id >= ?", FIRST_DELETABLE_ID);
+        context.getJdbcTemplate().update("insert into message (message_id, posted_by, message_text, time_posted_epoch) "
+            + "select ? + x, ?, 'deletable', ? from system_range(0, ? - 1)",
+            FIRST_DELETABLE_ID, BenchmarkContext.FIRST_SEEDED_ACCOUNT_ID, BenchmarkContext.FIRST_TIME_POSTED_EPOCH, 
+            DELETABLE_PER_ITERATION);
+        nextDeletable = FIRST_DELETABLE_ID;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Message postMessage() {
+        Message message = new Message(randomAccountId(), "benchmark post", BenchmarkContext.FIRST_TIME_POSTED_EPOCH);
+        return messageService.postMessage(message);
+    }
+
+    @Benchmark
+    public Message getMessage() {
+        return messageService.getMessage(randomMessageId());
+    }
+
+    @Benchmark
+    public MessagePage getAccountMessages() {
+        return messageService.getAccountMessages(randomAccountId(), null, MessageService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Integer updateMessage() {
+        return messageService.updateMessage(randomMessageId(), "benchmark update");
+    }
+
+    @Benchmark
+    public Integer deleteMessage() {
+        return messageService.deleteMessage(nextDeletable++);
+    }
+
+    @Benchmark
+    public Account register() {
+        return accountService.register(new Account("bench" + nextUsername++, BenchmarkContext.SEEDED_PASSWORD));
+    }
+
+    @Benchmark
+    public Account login() {
+        String username = "user" + ThreadLocalRandom.current().nextInt(accounts);
+        return accountService.login(new Account(username, BenchmarkContext.SEEDED_PASSWORD));
+    }
+
+    private int randomAccountId() {
+        return BenchmarkContext.FIRST_SEEDED_ACCOUNT_ID + ThreadLocalRandom.current().nextInt(accounts);
+    }
+
+    private int randomMessageId() {
+        return 1 + ThreadLocalRandom.current().nextInt(messages);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.entity.Message;
+import com.example.service.MessagePage;
+import com.example.service.MessageService;
+
+/**
+ * Regression benchmark for GET /accounts/{account_id}/messages.
+ * 
+ * Reads the first and a deep page of one account's timeline while the account's message count grows. 
+ * With the (posted_by, time_posted_epoch desc, message_id) index and keyset pagination, the time per page 
+ * should stay flat across accountMessages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TimelineBenchmark {
+
+    private static final int ACCOUNT_ID = 1;
+    private static final int FIRST_MESSAGE_ID = 100000;
+    private static final int PAGE_SIZE = MessageService.DEFAULT_PAGE_SIZE;
+
+    @Param({ "1000", "10000", "100000" })
+    public int accountMessages;
+
+    private BenchmarkContext context;
+    private MessageService messageService;
+    private String deepCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new BenchmarkContext();
+        context.insertAccount(ACCOUNT_ID, "timeline", "password");
+        context.insertMessages(ACCOUNT_ID, FIRST_MESSAGE_ID, accountMessages);
+        // another account's messages share the index but must not be read
+        context.insertMessages(9999, FIRST_MESSAGE_ID + accountMessages, 1000);
+        messageService = context.getBean(MessageService.class);
+
+        // cursor of the page before the last full page of the timeline (the oldest messages)
+        int index = PAGE_SIZE;
+        Message position = new Message(FIRST_MESSAGE_ID + index, ACCOUNT_ID, null, 
+            BenchmarkContext.FIRST_TIME_POSTED_EPOCH + index);
+        deepCursor = MessagePage.encodeTimelineCursor(position);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MessagePage firstPage() {
+        return messageService.getAccountMessages(ACCOUNT_ID, null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public MessagePage deepPage() {
+        return messageService.getAccountMessages(ACCOUNT_ID, deepCursor, PAGE_SIZE);
+    }
+}
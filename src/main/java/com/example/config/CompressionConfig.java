@@ -0,0 +1,65 @@
+package com.example.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Support for server.compression. Tomcat only applies server.compression.min-response-size to responses with a
+ * Content-Length; a response of unknown length is always compressed. Jackson writes JSON bodies without one, so
+ * without this even a single message would be gzipped, and come out larger than it went in.
+ */
+@Configuration(proxyBeanMethods = false)
+public class CompressionConfig {
+
+    /**
+     * Replaces Spring Boot's JSON converter, which backs off when a MappingJackson2HttpMessageConverter bean exists.
+     *
+     * @param objectMapper Spring Boot's ObjectMapper, with the serializers from com.example.json
+     * @return converter that sends JSON bodies with a Content-Length
+     */
+    @Bean
+    public ContentLengthJsonHttpMessageConverter contentLengthJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        return new ContentLengthJsonHttpMessageConverter(objectMapper);
+    }
+
+    /**
+     * Serializes each body into a buffer first, so its length is known before the headers are sent. Streamed
+     * responses, such as the NDJSON export, do not use this converter and keep being compressed.
+     */
+    public static class ContentLengthJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+        public ContentLengthJsonHttpMessageConverter(ObjectMapper objectMapper) {
+            super(objectMapper);
+        }
+
+        @Override
+        protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+                throws IOException, HttpMessageNotWritableException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            super.writeInternal(object, type, new HttpOutputMessage() {
+                @Override
+                public OutputStream getBody() {
+                    return body;
+                }
+
+                @Override
+                public HttpHeaders getHeaders() {
+                    return outputMessage.getHeaders();
+                }
+            });
+            outputMessage.getHeaders().setContentLength(body.size());
+            body.writeTo(outputMessage.getBody());
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+
+/**
+ * R2DBC access for the reactive read endpoints, to the same H2 database as the JDBC DataSource.
+ *
+ * The R2DBC ConnectionFactory is deliberately not a bean: Spring Boot backs off from creating the DataSource,
+ * and with it JPA, when one exists. For the same reason R2dbcAutoConfiguration is excluded in
+ * application.properties.
+ *
+ * The reactive reads exist only with app.reactive.enabled=true, the default, and an H2 spring.datasource.url, the
+ * only database with an R2DBC driver on the classpath. Otherwise this configuration, ReactiveMessageRepository,
+ * ReactiveMessageService and ReactiveMessageController are all skipped, the /reactive paths answer 404, and the
+ * JDBC endpoints run as usual.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnExpression(ReactiveConfig.ENABLED)
+public class ReactiveConfig {
+
+    /** Condition of every reactive read bean, so none of them is created without the others. */
+    public static final String ENABLED =
+        "${app.reactive.enabled:true} and '${spring.datasource.url:}'.startsWith('jdbc:h2:')";
+
+    private static final String H2_URL_PREFIX = "jdbc:h2:";
+
+    /**
+     * @param dataSourceProperties the spring.datasource settings, whose H2 url and credentials are reused
+     * @return DatabaseClient on an R2DBC connection factory for the DataSource's H2 database
+     */
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(DataSourceProperties dataSourceProperties) {
+        String url = dataSourceProperties.determineUrl();
+        H2ConnectionConfiguration configuration = H2ConnectionConfiguration.builder()
+            .url(url.substring(H2_URL_PREFIX.length()))
+            .username(dataSourceProperties.determineUsername())
+            .password(dataSourceProperties.determinePassword())
+            .build();
+        // not pooled: an embedded H2 session is cheap to open, and r2dbc-pool measured slower under load
+        return DatabaseClient.create(new H2ConnectionFactory(configuration));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Opt-in mode, app.virtual-threads.enabled=true, that handles every request on its own virtual thread instead of
+ * the Tomcat worker pool. Handlers block on JDBC, so with the pool the number of requests in progress is capped
+ * by server.tomcat.threads.max; with virtual threads it is capped only by server.tomcat.max-connections and,
+ * for requests that reach the database, by the connection pool.
+ *
+ * Virtual threads need a Java 21 or later runtime. The code is still compiled for Java 11, so the executor is
+ * created reflectively and startup fails with a clear message on an older runtime.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "app.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public VirtualThreadExecutorCustomizer virtualThreadExecutorCustomizer() {
+        return new VirtualThreadExecutorCustomizer(newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * @return ExecutorService that starts a new virtual thread for each task
+     * @throws IllegalStateException if the runtime does not support virtual threads
+     */
+    static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch(NoSuchMethodException e) {
+            throw new IllegalStateException("app.virtual-threads.enabled requires Java 21 or later, running on Java "
+                + Runtime.version());
+        }
+        catch(ReflectiveOperationException e) {
+            throw new IllegalStateException("Could not create the virtual thread executor", e);
+        }
+    }
+
+    /**
+     * Hands the virtual thread executor to Tomcat's connector. Tomcat does not shut down an executor it did not
+     * create, so it is shut down with the application context.
+     */
+    public static class VirtualThreadExecutorCustomizer implements TomcatProtocolHandlerCustomizer<ProtocolHandler>,
+                                                                   DisposableBean {
+
+        private final ExecutorService executor;
+
+        public VirtualThreadExecutorCustomizer(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void customize(ProtocolHandler protocolHandler) {
+            protocolHandler.setExecutor(executor);
+        }
+
+        @Override
+        public void destroy() {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.controller;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.example.config.ReactiveConfig;
+import com.example.entity.Message;
+import com.example.exception.InvalidInputException;
+import com.example.service.MessageETag;
+import com.example.service.MessagePage;
+import com.example.service.ReactiveMessageService;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive variant of the message read endpoints of SocialMediaController, under /reactive. Requests,
+ * responses, status codes, and the X-Next-Cursor and ETag headers are the same as on the original paths.
+ *
+ * The handlers return Mono and Flux, which Spring MVC serves asynchronously, so the API is non-blocking. On the
+ * embedded H2 database it is non-blocking in API only: r2dbc-h2 runs each query synchronously on the thread that
+ * subscribes, so a request still occupies a thread for as long as its query runs, and the load test measured these
+ * paths slower than the servlet ones. They only release threads on a database with a truly asynchronous R2DBC
+ * driver. Writes stay on SocialMediaController.
+ */
+@Controller
+@ConditionalOnExpression(ReactiveConfig.ENABLED)
+public class ReactiveMessageController {
+
+    ReactiveMessageService reactiveMessageService;
+
+    public ReactiveMessageController(ReactiveMessageService reactiveMessageService) {
+        this.reactiveMessageService = reactiveMessageService;
+    }
+
+    /**
+     * Retrieve all messages, one page at a time. Same as GET localhost:8080/messages.
+     *
+     * @param after optional opaque cursor taken from the X-Next-Cursor header of the previous page
+     * @param limit optional maximum number of messages on the page
+     * @return Mono<ResponseEntity> with a JSON list of the messages on the page, status 200, or status 400 if the
+     *         cursor or limit is not valid
+     */
+    @GetMapping(value="/reactive/messages")
+    public @ResponseBody Mono<ResponseEntity<List<Message>>> getMesssages(@RequestParam(required=false) String after,
+                                                                        @RequestParam(required=false) Integer limit) {
+        return pageResponse(reactiveMessageService.getMesssages(after, limit));
+    }
+
+    /**
+     * Export all messages as newline-delimited JSON. Same as GET localhost:8080/messages with the header
+     * Accept: application/x-ndjson. Each message is written as soon as it is read, and the next one is only
+     * read once the previous one was written, so a slow client slows down the query rather than filling memory.
+     *
+     * @return Flux<Message> every message in message_id order, one JSON message per line, status 200
+     */
+    @GetMapping(value="/reactive/messages", produces=SocialMediaController.NDJSON)
+    public @ResponseBody Flux<Message> exportMessages() {
+        return reactiveMessageService.exportMessages();
+    }
+
+    /**
+     * Retrieve a message by its ID. Same as GET localhost:8080/messages/{message_id}.
+     *
+     * @param message_id as a path variable
+     * @return Mono<ResponseEntity> with the JSON message, or an empty body if there is no such message. The
+     *         response status is always 200.
+     */
+    @GetMapping(value="/reactive/messages/{message_id}")
+    public @ResponseBody Mono<ResponseEntity<Message>> getMessage(@PathVariable int message_id) {
+        return reactiveMessageService.getMessage(message_id)
+            .map(message -> ResponseEntity.status(200).eTag(MessageETag.of(message)).body(message))
+            .defaultIfEmpty(ResponseEntity.status(200).build());
+    }
+
+    /**
+     * Retrieve the messages written by a particular user, newest first, one page at a time.
+     * Same as GET localhost:8080/accounts/{account_id}/messages.
+     *
+     * @param account_id as a path variable
+     * @param after optional opaque cursor taken from the X-Next-Cursor header of the previous page
+     * @param limit optional maximum number of messages on the page
+     * @return Mono<ResponseEntity> with a JSON list of the messages on the page, status 200, or status 400 if the
+     *         cursor or limit is not valid
+     */
+    @GetMapping(value="/reactive/accounts/{account_id}/messages")
+    public @ResponseBody Mono<ResponseEntity<List<Message>>> getAccountMessages(@PathVariable Integer account_id,
+                                                                              @RequestParam(required=false) String after,
+                                                                              @RequestParam(required=false) Integer limit) {
+        return pageResponse(reactiveMessageService.getAccountMessages(account_id, after, limit));
+    }
+
+    private static Mono<ResponseEntity<List<Message>>> pageResponse(Mono<MessagePage> page) {
+        return page
+            .map(messages -> {
+                ResponseEntity.BodyBuilder response = ResponseEntity.status(200);
+                if(messages.getNextCursor() != null) {
+                    response.header(SocialMediaController.NEXT_CURSOR_HEADER, messages.getNextCursor());
+                }
+                return response.eTag(MessageETag.of(messages)).body(messages.getMessages());
+            })
+            .onErrorResume(InvalidInputException.class, e -> Mono.just(ResponseEntity.status(400).build()));
+    }
+}
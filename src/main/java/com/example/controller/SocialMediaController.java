@@ -1,11 +1,15 @@
 package com.example.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.websocket.server.PathParam;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -15,14 +19,24 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.dto.BatchItemResult;
 import com.example.entity.Account;
+import com.example.entity.AccountStats;
 import com.example.entity.Message;
 import com.example.exception.DataConflictException;
 import com.example.exception.InvalidInputException;
+import com.example.exception.ServiceUnavailableException;
+import com.example.exception.VersionConflictException;
 import com.example.service.AccountService;
+import com.example.service.MessageETag;
+import com.example.service.MessagePage;
 import com.example.service.MessageService;
 
 /**
@@ -32,12 +46,19 @@ import com.example.service.MessageService;
 @Controller
 public class SocialMediaController {
 
+    /** Response header carrying the opaque cursor of the next page of a paginated list. */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    /** Media type of the streaming export of GET /messages. */
+    public static final String NDJSON = "application/x-ndjson";
+
     MessageService messageService;
     AccountService accountService;
+    ObjectMapper objectMapper;
 
-    public SocialMediaController(MessageService messageService, AccountService accountService) {
+    public SocialMediaController(MessageService messageService, AccountService accountService, ObjectMapper objectMapper) {
         this.messageService = messageService;
         this.accountService = accountService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -52,6 +73,8 @@ public class SocialMediaController {
      *   its account_id. The response status should be 200 OK, which is the default. The new account should 
      *   be persisted to the database.
      * - If the registration is not successful due to a duplicate username, the response status should be 409. (Conflict)
+     * - If the server is too busy hashing passwords, the response status should be 503. (Service Unavailable)
+     * - If the database rejects the account for a reason other than the username, the response status should be 500.
      * - If the registration is not successful for some other reason, the response status should be 400. (Client error)
      */
     @PostMapping(value= "/register")
@@ -66,6 +89,13 @@ public class SocialMediaController {
         catch(InvalidInputException e) {
             return ResponseEntity.status(400).build();
         }
+        catch(ServiceUnavailableException e) {
+            return ResponseEntity.status(503).build();
+        }
+        catch(DataIntegrityViolationException e) {
+            // a violation other than the unique username, which is the server's fault rather than the client's
+            return ResponseEntity.status(500).build();
+        }
         catch(RuntimeException e) {
             return ResponseEntity.status(400).build();
         }
@@ -81,6 +111,7 @@ public class SocialMediaController {
      * @return ResponseEntity 
      * - If successful, the response body should contain a JSON of the account in the response body, including its account_id. 
      *   The response status should be 200 OK, which is the default. 
+     * - If the server is too busy verifying passwords, the response status should be 503. (Service Unavailable)
      * - If the login is not successful, the response status should be 401. (Unauthorized)
      */
     @PostMapping(value="/login")
@@ -89,6 +120,9 @@ public class SocialMediaController {
             Account newAccount = accountService.login(account);
             return ResponseEntity.status(200).body(newAccount);
         }
+        catch(ServiceUnavailableException e) {
+            return ResponseEntity.status(503).build();
+        }
         catch(RuntimeException e) {
             return ResponseEntity.status(401).build();
         }
@@ -104,6 +138,7 @@ public class SocialMediaController {
      * @return ResponseEntity 
      * - If successful, the response body should contain a JSON of the message, including its message_id. 
      *   The response status should be 200, which is the default. The new message should be persisted to the database.
+     * - If write-behind ingestion is enabled and its queue is full, the response status should be 503. (Service Unavailable)
      * - If the creation of the message is not successful, the response status should be 400. (Client error)
      */
     @PostMapping(value="/messages")
@@ -113,6 +148,9 @@ public class SocialMediaController {
                 Message newMessage = messageService.postMessage(message);
                 return ResponseEntity.status(200).body(newMessage);
             } 
+            catch(ServiceUnavailableException e) {
+                return ResponseEntity.status(503).build();
+            }
             catch(RuntimeException e) {
                 return ResponseEntity.status(400).build();
             }
@@ -122,19 +160,92 @@ public class SocialMediaController {
         }
     }
 
+    /**
+     * Process the creation of a batch of new messages.
+     * As a user, I should be able to submit many new posts at once on the endpoint POST localhost:8080/messages/batch.
+     * Each message is accepted or rejected on its own, with the requirements in MessageService.postMessage.
+     *
+     * @param messages created from the request body which will contain a JSON array of messages, 
+     *  without message_ids.
+     * @return ResponseEntity 
+     * - If the batch was processed, the response body should contain a JSON array with one result per message, in 
+     *   request order: {"message_id": id} if the message was saved, {"error": reason} if it was not. 
+     *   The response status should be 200, which is the default.
+     * - If the batch is missing or has more than MessageService.MAX_BATCH_SIZE messages, the response status should 
+     *   be 400. (Client error)
+     */
+    @PostMapping(value="/messages/batch")
+    public @ResponseBody ResponseEntity<List<BatchItemResult>> postMessages(@RequestBody List<Message> messages) {
+        try {
+            List<BatchItemResult> results = messageService.postMessages(messages);
+            return ResponseEntity.status(200).body(results);
+        }
+        catch(InvalidInputException e) {
+            return ResponseEntity.status(400).build();
+        }
+    }
+
     /**
      * Retrieve all messages.
      * As a user, I should be able to submit a GET request on the endpoint GET localhost:8080/messages.
+     * Messages are returned one page at a time; the next page is requested with GET localhost:8080/messages?after={cursor}.
      * 
+     * @param after optional opaque cursor taken from the X-Next-Cursor header of the previous page
+     * @param limit optional maximum number of messages on the page
      * @return ResponseEntity
-     * - The response body should contain a JSON representation of a list containing all messages retrieved from the database. 
+     * - The response body should contain a JSON representation of a list containing a page of messages retrieved from the database. 
      * - It is expected for the list to simply be empty if there are no messages. 
-     *   The response status should always be 200, which is the default.
+     *   The response status should be 200, which is the default.
+     * - If there are more messages, the X-Next-Cursor header contains the cursor of the next page.
+     * - The ETag header contains a weak entity tag of the page. If it matches the If-None-Match header of the
+     *   request, the response status should be 304 (Not Modified), without a body.
+     * - If the cursor or limit is not valid, the response status should be 400. (Client error)
      */
     @GetMapping(value="/messages")
-    public @ResponseBody ResponseEntity<List<Message>> getMesssages() {
-        List<Message> messages = messageService.getMesssages();
-        return ResponseEntity.status(200).body(messages);
+    public @ResponseBody ResponseEntity<List<Message>> getMesssages(@RequestParam(required=false) String after,
+                                                                  @RequestParam(required=false) Integer limit) {
+        try {
+            MessagePage page = messageService.getMesssages(after, limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(200);
+            if(page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.eTag(MessageETag.of(page)).body(page.getMessages());
+        }
+        catch(InvalidInputException e) {
+            return ResponseEntity.status(400).build();
+        }
+    }
+
+    /**
+     * Export all messages as newline-delimited JSON.
+     * As a downstream job, I should be able to submit a GET request on the endpoint GET localhost:8080/messages 
+     * with the header Accept: application/x-ndjson.
+     * 
+     * Messages are written to the response as they are read from the database, so the size of the table 
+     * does not affect memory use.
+     * 
+     * @param response the servlet response to stream to
+     * - The response body should contain one JSON message per line, in message_id order. 
+     * - It is expected for the body to simply be empty if there are no messages. 
+     *   The response status should always be 200, which is the default.
+     */
+    @GetMapping(value="/messages", produces=NDJSON)
+    public void exportMessages(HttpServletResponse response) throws IOException {
+        response.setStatus(200);
+        response.setContentType(NDJSON);
+        try(JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.setRootValueSeparator(null);
+            messageService.exportMessages(message -> {
+                try {
+                    generator.writeObject(message);
+                    generator.writeRaw('\n');
+                }
+                catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
 
     /**
@@ -145,13 +256,16 @@ public class SocialMediaController {
      * @return ResponseEntity
      * The response body should contain a JSON representation of the message identified by the message_id. 
      * It is expected for the response body to simply be empty if there is no such message. 
-     * The response status should always be 200, which is the default.
+     * The response status should be 200, which is the default.
+     * If the message exists, the ETag header contains a strong entity tag of it. If that matches the If-None-Match 
+     * header of the request, the response status should be 304 (Not Modified), without a body. Cached messages
+     * are checked without reading the database.
      */
     @GetMapping(value="/messages/{message_id}")
     public @ResponseBody ResponseEntity<Message> getMessage(@PathVariable int message_id) {
         Message newMessage = messageService.getMessage(message_id);
         if(newMessage != null ) {
-            return ResponseEntity.status(200).body(newMessage);
+            return ResponseEntity.status(200).eTag(MessageETag.of(newMessage)).body(newMessage);
         } else {
             return ResponseEntity.status(200).build();
         }
@@ -188,28 +302,45 @@ public class SocialMediaController {
      * in MessageService.updateMessage. The message existing in the database should have the updated message_text.
      * 
      * @param message_id as a path variable. A unique identifier for the message (primary key)
+     * @param ifMatch optional If-Match header with the ETag of the message from GET localhost:8080/messages/{message_id}.
+     *        The update is then only made if the message has not changed since, or * for any version.
      * @param message_text The request body should contain json name value pairs with the value for
      *        message_text. The request body can not be guaranteed to contain any other information. 
      * @return ResponseEnity
      * - If the update is successful, the response body should contain the number of rows updated (1), and the response 
-     *   status should be 200, which is the default. 
-     * - If the update of the message is not successful for any reason, the response status should be 400. (Client error)
+     *   status should be 200, which is the default. With If-Match, the ETag header contains the new ETag of the message.
+     * - If the message has changed since the ETag in If-Match, the response status should be 409 (Conflict), and the 
+     *   ETag header contains the current ETag of the message to retry with.
+     * - If the update of the message is not successful for any other reason, the response status should be 400. (Client error)
      */
     @PatchMapping(value="/messages/{message_id}") 
-    public @ResponseBody ResponseEntity<Integer> updateMessage(@PathVariable Integer message_id, @RequestBody Map<String,String> message_text) {
+    public @ResponseBody ResponseEntity<Integer> updateMessage(@PathVariable Integer message_id, 
+                                                             @RequestHeader(value="If-Match", required=false) String ifMatch,
+                                                             @RequestBody Map<String,String> message_text) {
         String text = null;
         if(message_text != null) {
             text = (String) message_text.get("message_text");
         }
         try {
-            Integer rows = messageService.updateMessage(message_id, text);
+            Integer version = null;
+            if(ifMatch != null && !ifMatch.trim().equals("*")) {
+                version = MessageETag.versionOf(message_id, ifMatch);
+            }
+            Integer rows = messageService.updateMessage(message_id, text, version);
             if(rows > 0) {
-                return ResponseEntity.status(200).body(rows);
+                ResponseEntity.BodyBuilder response = ResponseEntity.status(200);
+                if(version != null) {
+                    response.eTag(MessageETag.of(message_id, version + 1));
+                }
+                return response.body(rows);
             } else {
                 return ResponseEntity.status(400).build();
             }   
         }
-        catch(RuntimeException e) {
+        catch(VersionConflictException e) {
+            return ResponseEntity.status(409).eTag(MessageETag.of(message_id, e.getCurrentVersion())).build();
+        }
+        catch(InvalidInputException e) {
             return ResponseEntity.status(400).build();
         }
     }
@@ -217,17 +348,57 @@ public class SocialMediaController {
     /**
      * Retrieve all messages written by a particular user.
      * As a user, I should be able to submit a GET request on the endpoint GET localhost:8080/accounts/{account_id}/messages.
+     * Messages are returned newest first, one page at a time; the next page is requested with 
+     * GET localhost:8080/accounts/{account_id}/messages?after={cursor}.
      * 
      * @param account_id as a path variable
+     * @param after optional opaque cursor taken from the X-Next-Cursor header of the previous page
+     * @param limit optional maximum number of messages on the page
      * @return ResponseEntity
-     * - The response body should contain a JSON representation of a list containing all messages posted by a particular user, 
+     * - The response body should contain a JSON representation of a list containing a page of messages posted by a particular user, 
      *   which is retrieved from the database. 
      * - It is expected for the list to simply be empty if there are no messages. 
-     * The response status should always be 200, which is the default. 
+     *   The response status should be 200, which is the default. 
+     * - If there are more messages, the X-Next-Cursor header contains the cursor of the next page.
+     * - The ETag header contains a weak entity tag of the page. If it matches the If-None-Match header of the
+     *   request, the response status should be 304 (Not Modified), without a body.
+     * - If the cursor or limit is not valid, the response status should be 400. (Client error)
      */
     @GetMapping(value="/accounts/{account_id}/messages")
-    public @ResponseBody ResponseEntity<List<Message>> getAccountMessages(@PathVariable Integer account_id) {
-        List<Message> messages = messageService.getAccountMessages(account_id);
-        return ResponseEntity.status(200).body(messages);
+    public @ResponseBody ResponseEntity<List<Message>> getAccountMessages(@PathVariable Integer account_id,
+                                                                        @RequestParam(required=false) String after,
+                                                                        @RequestParam(required=false) Integer limit) {
+        try {
+            MessagePage page = messageService.getAccountMessages(account_id, after, limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.status(200);
+            if(page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.eTag(MessageETag.of(page)).body(page.getMessages());
+        }
+        catch(InvalidInputException e) {
+            return ResponseEntity.status(400).build();
+        }
+    }
+
+    /**
+     * Retrieve the message summary of a particular user.
+     * As a user, I should be able to submit a GET request on the endpoint GET localhost:8080/accounts/{account_id}/stats.
+     * 
+     * @param account_id as a path variable
+     * @return ResponseEntity
+     * The response body should contain a JSON representation of the account's summary: its account_id, message_count, 
+     * and the latest_message_id and latest_time_posted_epoch of the first message of its timeline (null if it has 
+     * no messages). It is expected for the response body to simply be empty if there is no such account. 
+     * The response status should always be 200, which is the default.
+     */
+    @GetMapping(value="/accounts/{account_id}/stats")
+    public @ResponseBody ResponseEntity<AccountStats> getAccountStats(@PathVariable int account_id) {
+        AccountStats stats = messageService.getAccountStats(account_id);
+        if(stats != null) {
+            return ResponseEntity.status(200).body(stats);
+        } else {
+            return ResponseEntity.status(200).build();
+        }
     }
 }
@@ -0,0 +1,58 @@
+package com.example.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The outcome of one message in a POST /messages/batch request: either the message_id it was saved with, 
+ * or the reason it was rejected.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+
+    /** The message_text is blank or over 255 characters, or posted_by is missing. */
+    public static final String INVALID_MESSAGE = "invalid message";
+    /** posted_by does not refer to an existing account. */
+    public static final String UNKNOWN_ACCOUNT = "unknown posted_by";
+    /** The database rejected the message when it was inserted on its own. */
+    public static final String NOT_SAVED = "not saved";
+
+    private Integer message_id;
+    private String error;
+
+    public BatchItemResult() {
+    }
+
+    public static BatchItemResult saved(Integer message_id) {
+        BatchItemResult result = new BatchItemResult();
+        result.message_id = message_id;
+        return result;
+    }
+
+    public static BatchItemResult rejected(String error) {
+        BatchItemResult result = new BatchItemResult();
+        result.error = error;
+        return result;
+    }
+
+    /**
+     * @return Integer the message_id of the saved message, null if it was rejected
+     */
+    public Integer getMessage_id() {
+        return message_id;
+    }
+
+    /**
+     * @return String why the message was rejected, null if it was saved
+     */
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchItemResult{" +
+                "message_id=" + message_id +
+                ", error='" + error + '\'' +
+                '}';
+    }
+}
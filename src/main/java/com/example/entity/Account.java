@@ -10,10 +10,12 @@ import javax.persistence.*;
 @Entity
 public class Account {
     /**
-     * An id for this Account. You should use this as the Entity's ID.
+     * An id for this Account. You should use this as the Entity's ID. Ids are generated from the account_seq 
+     * sequence in blocks of 50.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_seq")
+    @SequenceGenerator(name = "account_seq", sequenceName = "account_seq", allocationSize = 50)
     private Integer account_id;
     /**
      * A username for this Account (must be unique and not blank)
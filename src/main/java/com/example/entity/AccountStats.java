@@ -0,0 +1,136 @@
+package com.example.entity;
+
+import java.util.Objects;
+
+import javax.persistence.*;
+
+/**
+ * This is a class that models the message summary of an Account: how many messages it has posted and which one is
+ * the latest. The summary is maintained by MessageService in the same transaction as every message insert and
+ * delete, so reading it is a primary key lookup rather than a scan of the account's messages.
+ */
+@Entity
+@Table(name="account_stats")
+public class AccountStats {
+    /**
+     * The account this summary belongs to. Every account has one, created with the account.
+     */
+    @Id
+    @Column (name="account_id")
+    private Integer account_id;
+    /**
+     * The number of messages the account has posted and not deleted.
+     */
+    @Column (name="message_count")
+    private Integer message_count;
+    /**
+     * The message_id of the account's latest message, the first one of its timeline. Null if it has no messages.
+     */
+    @Column (name="latest_message_id")
+    private Integer latest_message_id;
+    /**
+     * The time_posted_epoch of the account's latest message. Null if it has no messages, or only untimed ones.
+     */
+    @Column (name="latest_time_posted_epoch")
+    private Long latest_time_posted_epoch;
+    /**
+     * A default, no-args constructor, as well as correctly formatted getters and setters, are needed for
+     * Jackson Objectmapper to work.
+     */
+    public AccountStats() {
+    }
+    /**
+     * @param account_id
+     * @param message_count
+     * @param latest_message_id
+     * @param latest_time_posted_epoch
+     */
+    public AccountStats(Integer account_id, Integer message_count, Integer latest_message_id, Long latest_time_posted_epoch) {
+        this.account_id = account_id;
+        this.message_count = message_count;
+        this.latest_message_id = latest_message_id;
+        this.latest_time_posted_epoch = latest_time_posted_epoch;
+    }
+    /**
+     * @return account_id
+     */
+    public Integer getAccount_id() {
+        return account_id;
+    }
+    /**
+     * @param account_id
+     */
+    public void setAccount_id(Integer account_id) {
+        this.account_id = account_id;
+    }
+    /**
+     * @return message_count
+     */
+    public Integer getMessage_count() {
+        return message_count;
+    }
+    /**
+     * @param message_count
+     */
+    public void setMessage_count(Integer message_count) {
+        this.message_count = message_count;
+    }
+    /**
+     * @return latest_message_id
+     */
+    public Integer getLatest_message_id() {
+        return latest_message_id;
+    }
+    /**
+     * @param latest_message_id
+     */
+    public void setLatest_message_id(Integer latest_message_id) {
+        this.latest_message_id = latest_message_id;
+    }
+    /**
+     * @return latest_time_posted_epoch
+     */
+    public Long getLatest_time_posted_epoch() {
+        return latest_time_posted_epoch;
+    }
+    /**
+     * @param latest_time_posted_epoch
+     */
+    public void setLatest_time_posted_epoch(Long latest_time_posted_epoch) {
+        this.latest_time_posted_epoch = latest_time_posted_epoch;
+    }
+    /**
+     * Overriding the default equals() method allows Assert.assertEquals to compare summaries.
+     * @param obj the other object.
+     * @return true if obj is equal to this object.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null || getClass() != obj.getClass())
+            return false;
+        AccountStats other = (AccountStats) obj;
+        return Objects.equals(account_id, other.account_id) && Objects.equals(message_count, other.message_count)
+            && Objects.equals(latest_message_id, other.latest_message_id)
+            && Objects.equals(latest_time_posted_epoch, other.latest_time_posted_epoch);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(account_id, message_count, latest_message_id, latest_time_posted_epoch);
+    }
+    /**
+     * Overriding the default toString() method allows for easy debugging.
+     * @return a String representation of this class.
+     */
+    @Override
+    public String toString() {
+        return "AccountStats{" +
+                "account_id=" + account_id +
+                ", message_count=" + message_count +
+                ", latest_message_id=" + latest_message_id +
+                ", latest_time_posted_epoch=" + latest_time_posted_epoch +
+                '}';
+    }
+}
@@ -2,6 +2,8 @@ package com.example.entity;
 
 import javax.persistence.*;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 /**
  * This is a class that models a Message.
  *
@@ -11,10 +13,12 @@ import javax.persistence.*;
 @Table(name="message")
 public class Message {
      /**
-     * An id for this message which will be automatically generated by the database.
+     * An id for this message which will be automatically generated from the message_seq sequence. Ids are 
+     * allocated in blocks of 50, so inserts need no sequence round trip per row and can be batched.
      */
      @Column (name="message_id")
-     @Id @GeneratedValue
+     @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "message_seq")
+     @SequenceGenerator(name = "message_seq", sequenceName = "message_seq", allocationSize = 50)
     private Integer message_id;
     /**
      * The id for the user who has posted this message. We will assume that this is provided by the front-end of this
@@ -33,6 +37,14 @@ public class Message {
      */
     @Column (name="time_posted_epoch")
     private Long time_posted_epoch;
+    /**
+     * The optimistic locking version of this message, 0 when it is created and incremented by every update.
+     * It is not part of the JSON representation of a message; clients see it through the message's ETag.
+     */
+    @Version
+    @Column (name="version")
+    @JsonIgnore
+    private Integer version;
     /**
      * A default, no-args constructor, as well as correctly formatted getters and setters, are needed for
      * Jackson Objectmapper to work.
@@ -65,6 +77,18 @@ public class Message {
         this.message_text = message_text;
         this.time_posted_epoch = time_posted_epoch;
     }
+    /**
+     * When reading a message for a conditional request, the version is needed as well.
+     * @param message_id
+     * @param posted_by
+     * @param message_text
+     * @param time_posted_epoch
+     * @param version
+     */
+    public Message(Integer message_id, Integer posted_by, String message_text, Long time_posted_epoch, Integer version) {
+        this(message_id, posted_by, message_text, time_posted_epoch);
+        this.version = version;
+    }
     /**
      * Properly named getters and setters are necessary for Jackson ObjectMapper to work. You may use them as well.
      * @return message_id
@@ -121,9 +145,21 @@ public class Message {
     public void setTime_posted_epoch(Long time_posted_epoch) {
         this.time_posted_epoch = time_posted_epoch;
     }
+    /**
+     * @return version the optimistic locking version, null if the message was not read from the database
+     */
+    public Integer getVersion() {
+        return version;
+    }
+    /**
+     * @param version
+     */
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
     /**
      * Overriding the default equals() method adds functionality to tell when two objects are identical, allowing
-     * Assert.assertEquals and List.contains to function.
+     * Assert.assertEquals and List.contains to function. The version is not compared.
      * @param o the other object.
      * @return true if o is equal to this object.
      */
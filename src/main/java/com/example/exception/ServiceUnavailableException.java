@@ -0,0 +1,8 @@
+package com.example.exception;
+
+/**
+ * Exception class for requests rejected because the server is overloaded
+ */
+public class ServiceUnavailableException extends RuntimeException {
+    
+}
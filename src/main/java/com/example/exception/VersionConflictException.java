@@ -0,0 +1,20 @@
+package com.example.exception;
+
+/**
+ * Exception class for conditional updates based on a version that is no longer current
+ */
+public class VersionConflictException extends DataConflictException {
+
+    private final int currentVersion;
+
+    public VersionConflictException(int currentVersion) {
+        this.currentVersion = currentVersion;
+    }
+
+    /**
+     * @return int the version the data has now, for the client to read and retry from
+     */
+    public int getCurrentVersion() {
+        return currentVersion;
+    }
+}
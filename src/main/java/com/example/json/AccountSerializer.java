@@ -0,0 +1,40 @@
+package com.example.json;
+
+import java.io.IOException;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.example.entity.Account;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes an Account field by field instead of through reflective bean serialization. The output is byte for byte
+ * what Jackson writes for Account by default: the properties in declaration order, with nulls included.
+ * A new Account property must be added here as well.
+ */
+@JsonComponent
+public class AccountSerializer extends StdSerializer<Account> {
+
+    private static final SerializedString ACCOUNT_ID = new SerializedString("account_id");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString PASSWORD = new SerializedString("password");
+
+    public AccountSerializer() {
+        super(Account.class);
+    }
+
+    @Override
+    public void serialize(Account account, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(account);
+        generator.writeFieldName(ACCOUNT_ID);
+        JsonFields.writeNumber(generator, account.getAccount_id());
+        generator.writeFieldName(USERNAME);
+        generator.writeString(account.getUsername());
+        generator.writeFieldName(PASSWORD);
+        generator.writeString(account.getPassword());
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.json;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Null-safe writers for boxed numbers, which JsonGenerator only accepts unboxed.
+ */
+final class JsonFields {
+
+    private JsonFields() {
+    }
+
+    static void writeNumber(JsonGenerator generator, Integer value) throws IOException {
+        if(value == null) {
+            generator.writeNull();
+        }
+        else {
+            generator.writeNumber(value.intValue());
+        }
+    }
+
+    static void writeNumber(JsonGenerator generator, Long value) throws IOException {
+        if(value == null) {
+            generator.writeNull();
+        }
+        else {
+            generator.writeNumber(value.longValue());
+        }
+    }
+}
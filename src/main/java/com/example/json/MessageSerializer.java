@@ -0,0 +1,43 @@
+package com.example.json;
+
+import java.io.IOException;
+
+import org.springframework.boot.jackson.JsonComponent;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Writes a Message field by field instead of through reflective bean serialization. The output is byte for byte
+ * what Jackson writes for Message by default: the properties in declaration order, with nulls included, and
+ * without the @JsonIgnore'd version. A new Message property must be added here as well.
+ */
+@JsonComponent
+public class MessageSerializer extends StdSerializer<Message> {
+
+    private static final SerializedString MESSAGE_ID = new SerializedString("message_id");
+    private static final SerializedString POSTED_BY = new SerializedString("posted_by");
+    private static final SerializedString MESSAGE_TEXT = new SerializedString("message_text");
+    private static final SerializedString TIME_POSTED_EPOCH = new SerializedString("time_posted_epoch");
+
+    public MessageSerializer() {
+        super(Message.class);
+    }
+
+    @Override
+    public void serialize(Message message, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        generator.writeStartObject(message);
+        generator.writeFieldName(MESSAGE_ID);
+        JsonFields.writeNumber(generator, message.getMessage_id());
+        generator.writeFieldName(POSTED_BY);
+        JsonFields.writeNumber(generator, message.getPosted_by());
+        generator.writeFieldName(MESSAGE_TEXT);
+        generator.writeString(message.getMessage_text());
+        generator.writeFieldName(TIME_POSTED_EPOCH);
+        JsonFields.writeNumber(generator, message.getTime_posted_epoch());
+        generator.writeEndObject();
+    }
+}
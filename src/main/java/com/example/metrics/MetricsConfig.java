@@ -0,0 +1,55 @@
+package com.example.metrics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Metrics beyond the ones Actuator registers by itself (http.server.requests by uri and status,
+ * spring.data.repository.invocations, HikariCP pool gauges):
+ *
+ * - app.service timers for the service methods annotated with @Timed(SERVICE_TIMER), tagged by class and method.
+ * - app.sql.statements, the SQL statements prepared by each request. With app.diagnostics.sql-statements=true
+ *   the count is also returned in the X-SQL-Statement-Count response header.
+ *
+ * Everything is exposed at /actuator/metrics and, for scraping, /actuator/prometheus.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+    /** Name of the timer recorded for service methods annotated with @Timed(SERVICE_TIMER). */
+    public static final String SERVICE_TIMER = "app.service";
+
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    @Bean
+    public SqlStatementCounter sqlStatementCounter() {
+        return new SqlStatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer(SqlStatementCounter counter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, counter);
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatementMetricsFilter> sqlStatementMetricsFilter(SqlStatementCounter counter,
+            MeterRegistry registry, @Value("${app.diagnostics.sql-statements:false}") boolean diagnostic) {
+        FilterRegistrationBean<SqlStatementMetricsFilter> registration =
+            new FilterRegistrationBean<>(new SqlStatementMetricsFilter(counter, registry, diagnostic));
+        // outermost, so the count covers statements run by any other filter as well as by the handler, and in
+        // diagnostic mode the header is set only after every other filter has finished writing the response
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
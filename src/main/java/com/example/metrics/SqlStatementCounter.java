@@ -0,0 +1,49 @@
+package com.example.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a count is open.
+ *
+ * Statements prepared outside of an open count, such as during startup, are not counted. A JDBC batch is prepared
+ * once, so it counts as one statement however many rows it holds.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private final ThreadLocal<int[]> count = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        int[] statements = count.get();
+        if(statements != null) {
+            statements[0]++;
+        }
+        return sql;
+    }
+
+    /**
+     * Start counting the statements prepared on the current thread.
+     */
+    public void open() {
+        count.set(new int[1]);
+    }
+
+    /**
+     * @return int the number of statements prepared on the current thread since open, 0 if no count is open
+     */
+    public int current() {
+        int[] statements = count.get();
+        return statements == null ? 0 : statements[0];
+    }
+
+    /**
+     * Stop counting on the current thread.
+     *
+     * @return int the number of statements prepared since open
+     */
+    public int close() {
+        int statements = current();
+        count.remove();
+        return statements;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Records the number of SQL statements each request prepared in the app.sql.statements distribution summary,
+ * tagged by method and uri template like http.server.requests.
+ *
+ * In diagnostic mode the count is also returned in the X-SQL-Statement-Count response header. The header has to be
+ * set after the handler ran, so the response body is buffered until then; streamed responses such as the NDJSON
+ * export are held in memory. Diagnostic mode is meant for tests and troubleshooting, not for production.
+ */
+public class SqlStatementMetricsFilter extends OncePerRequestFilter {
+
+    public static final String METRIC_NAME = "app.sql.statements";
+    public static final String STATEMENT_COUNT_HEADER = "X-SQL-Statement-Count";
+
+    private final SqlStatementCounter counter;
+    private final MeterRegistry registry;
+    private final boolean diagnostic;
+
+    /**
+     * @param counter counts the statements of the current request
+     * @param registry where app.sql.statements is recorded
+     * @param diagnostic true to also return the count in the X-SQL-Statement-Count header
+     */
+    public SqlStatementMetricsFilter(SqlStatementCounter counter, MeterRegistry registry, boolean diagnostic) {
+        this.counter = counter;
+        this.registry = registry;
+        this.diagnostic = diagnostic;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper buffered = diagnostic ? new ContentCachingResponseWrapper(response) : null;
+        counter.open();
+        try {
+            chain.doFilter(request, buffered == null ? response : buffered);
+        }
+        finally {
+            int statements = counter.close();
+            if(buffered != null) {
+                buffered.setIntHeader(STATEMENT_COUNT_HEADER, statements);
+                buffered.copyBodyToResponse();
+            }
+            Object uri = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            DistributionSummary.builder(METRIC_NAME)
+                .description("SQL statements prepared per request")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri == null ? "UNKNOWN" : uri.toString())
+                .register(registry)
+                .record(statements);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.repository;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.example.entity.Account;
@@ -11,10 +14,30 @@ import com.example.entity.Account;
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Integer> {
 
+    /**
+     * The unique constraint on username, see data.sql. Violating it is the only way an otherwise valid 
+     * registration fails.
+     */
+    String USERNAME_CONSTRAINT = "account_username_uk";
+
     /**
      * Find Account by Username
      * @param username
      * @return The Account with matching username
      */
     public Account findByUsername(String username);
+
+    /**
+     * Find the ids of all accounts, without loading the accounts
+     * @return List of every account_id
+     */
+    @Query("SELECT a.account_id FROM Account a")
+    List<Integer> findAllAccountIds();
+
+    /**
+     * Find the usernames of all accounts, without loading the accounts
+     * @return List of every username
+     */
+    @Query("SELECT a.username FROM Account a")
+    List<String> findAllUsernames();
 }
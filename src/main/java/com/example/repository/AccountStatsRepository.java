@@ -0,0 +1,118 @@
+package com.example.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.entity.AccountStats;
+import com.example.entity.Message;
+
+/**
+ * Repository Interface for AccountStats entities. The writes must run in the transaction of the account or message
+ * write they account for, so they require one.
+ */
+@Repository
+public interface AccountStatsRepository extends JpaRepository<AccountStats, Integer> {
+
+    /**
+     * The first message of an account's timeline, in the order of the message_posted_by_time_idx index, so it is
+     * a single index seek no matter how many messages the account has.
+     */
+    String LATEST_MESSAGE = "SELECT message_id, time_posted_epoch FROM message WHERE posted_by = ?1 "
+        + "ORDER BY time_posted_epoch DESC, message_id FETCH FIRST 1 ROW ONLY";
+
+    /**
+     * Whether the message ?3 posted at ?4 comes before the stored latest message in the timeline order of 
+     * LATEST_MESSAGE: newer first, then lower message_id first, untimed messages last.
+     */
+    String BEFORE_LATEST = "latest_message_id IS NULL "
+        + "OR (?4 IS NOT NULL AND (latest_time_posted_epoch IS NULL OR ?4 > latest_time_posted_epoch "
+        + "OR (?4 = latest_time_posted_epoch AND ?3 < latest_message_id))) "
+        + "OR (?4 IS NULL AND latest_time_posted_epoch IS NULL AND ?3 < latest_message_id)";
+
+    /**
+     * The timeline order of LATEST_MESSAGE and BEFORE_LATEST, for choosing the latest of several new messages.
+     */
+    Comparator<Message> TIMELINE_ORDER = Comparator
+        .comparing(Message::getTime_posted_epoch, Comparator.nullsLast(Comparator.reverseOrder()))
+        .thenComparing(Message::getMessage_id);
+
+    /**
+     * Create the empty summary of a new account. Pending inserts are flushed first, so the account row exists.
+     * @param account_id the account just inserted
+     * @return int number of rows inserted (1)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(nativeQuery = true, value = "INSERT INTO account_stats (account_id, message_count) VALUES (?1, 0)")
+    int createStats(Integer account_id);
+
+    /**
+     * Count messages inserted by an account and make the latest of them its latest message if it comes before the
+     * stored one, so an insert never has to look at the account's other messages. The row stays locked until the
+     * transaction ends, which serializes concurrent writes of the same account's messages.
+     * @param account_id the account that posted the messages
+     * @param count the number of messages inserted
+     * @param message_id the message_id of the latest message inserted
+     * @param time_posted_epoch the time_posted_epoch of the latest message inserted, may be null
+     * @return int number of rows updated (1 if the account exists, 0 if not)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(nativeQuery = true, value = "UPDATE account_stats SET message_count = message_count + ?2, "
+        + "latest_message_id = CASE WHEN " + BEFORE_LATEST + " THEN ?3 ELSE latest_message_id END, "
+        + "latest_time_posted_epoch = CASE WHEN " + BEFORE_LATEST + " THEN ?4 ELSE latest_time_posted_epoch END "
+        + "WHERE account_id = ?1")
+    int addMessages(Integer account_id, int count, Integer message_id, Long time_posted_epoch);
+
+    /**
+     * Count a newly inserted message in the summary of the account that posted it.
+     * @param message a message inserted in the current transaction, with its message_id
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    default void addMessage(Message message) {
+        addMessages(message.getPosted_by(), 1, message.getMessage_id(), message.getTime_posted_epoch());
+    }
+
+    /**
+     * Count newly inserted messages in the summaries of the accounts that posted them, with one update per account.
+     * @param messages messages inserted in the current transaction, with their message_ids
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    default void addMessages(Collection<Message> messages) {
+        Map<Integer, List<Message>> byAccount = new TreeMap<>();
+        for(Message message : messages) {
+            byAccount.computeIfAbsent(message.getPosted_by(), account_id -> new ArrayList<>()).add(message);
+        }
+        // in account_id order, so two transactions updating the same accounts lock them in the same order
+        for(Map.Entry<Integer, List<Message>> account : byAccount.entrySet()) {
+            Message latest = Collections.min(account.getValue(), TIMELINE_ORDER);
+            addMessages(account.getKey(), account.getValue().size(), latest.getMessage_id(),
+                latest.getTime_posted_epoch());
+        }
+    }
+
+    /**
+     * Uncount deleted messages and find the account's latest message again, since a deleted one may have been it.
+     * Pending deletes are flushed first, so the subquery no longer sees them.
+     * @param account_id the account that posted the messages
+     * @param count the number of messages deleted
+     * @return int number of rows updated (1 if the account exists, 0 if not)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(nativeQuery = true, value = "UPDATE account_stats SET message_count = message_count - ?2, "
+        + "(latest_message_id, latest_time_posted_epoch) = (" + LATEST_MESSAGE + ") WHERE account_id = ?1")
+    int removeMessages(Integer account_id, int count);
+}
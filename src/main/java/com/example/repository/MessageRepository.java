@@ -1,13 +1,24 @@
 package com.example.repository;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.entity.Message;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 /**
  * Repository Interface for Message entities.
  */
@@ -15,10 +26,115 @@ import com.example.entity.Message;
 public interface MessageRepository extends JpaRepository<Message, Integer> {
 
     /**
-     * Find all messages posted by an account
+     * Select and from clauses of the list queries. The constructor expression returns unmanaged Messages: Hibernate keeps
+     * no entity entry or dirty-checking snapshot for them, so a page costs only the Messages themselves and
+     * the persistence context does not grow with the page size.
+     */
+    String SELECT_VIEW = "SELECT new com.example.entity.Message(c.message_id, c.posted_by, c.message_text, "
+        + "c.time_posted_epoch, c.version) FROM Message c";
+
+    /**
+     * Find the first page of messages posted by an account, newest first.
+     * The order matches the message_posted_by_time_idx index (posted_by, time_posted_epoch desc, message_id),
+     * so a page is read straight from the index without sorting the account's messages.
+     * Messages without a time_posted_epoch come last.
      * @param posted_by the account_id of the user who posted the message
+     * @param pageable the page size (page number is always 0 for keyset paging)
      * @return List of Messages posted by the user
      */
-    @Query("SELECT c FROM Message c WHERE c.posted_by = ?1")
-    List<Message> findAllMessagesByPostedBy(Integer posted_by);
+    @Query(SELECT_VIEW + " WHERE c.posted_by = ?1 ORDER BY c.time_posted_epoch DESC, c.message_id")
+    List<Message> findAllMessagesByPostedBy(Integer posted_by, Pageable pageable);
+
+    /**
+     * Find the next page of timed messages posted by an account after a keyset position in the timeline.
+     * The range on time_posted_epoch is an index seek; the second condition only skips the already seen messages
+     * that share the last time_posted_epoch.
+     * @param posted_by the account_id of the user who posted the message
+     * @param time_posted_epoch the time_posted_epoch of the last message already seen
+     * @param message_id the message_id of the last message already seen
+     * @param pageable the page size (page number is always 0 for keyset paging)
+     * @return List of Messages posted by the user after the position, excluding messages without a time_posted_epoch
+     */
+    @Query(SELECT_VIEW + " WHERE c.posted_by = ?1 AND c.time_posted_epoch <= ?2 "
+        + "AND (c.time_posted_epoch < ?2 OR c.message_id > ?3) ORDER BY c.time_posted_epoch DESC, c.message_id")
+    List<Message> findMessagesByPostedByAfter(Integer posted_by, Long time_posted_epoch, Integer message_id, Pageable pageable);
+
+    /**
+     * Find the messages without a time_posted_epoch posted by an account, which end its timeline.
+     * @param posted_by the account_id of the user who posted the message
+     * @param message_id the last untimed message_id already seen, exclusive
+     * @param pageable the page size (page number is always 0 for keyset paging)
+     * @return List of untimed Messages posted by the user in message_id order
+     */
+    @Query(SELECT_VIEW + " WHERE c.posted_by = ?1 AND c.time_posted_epoch IS NULL AND c.message_id > ?2 "
+        + "ORDER BY c.message_id")
+    List<Message> findUntimedMessagesByPostedByAfter(Integer posted_by, Integer message_id, Pageable pageable);
+
+    /**
+     * Find the next page of messages after a keyset position, in message_id order.
+     * The seek on the primary key keeps the cost of a page the same no matter how deep it is.
+     * @param after the last message_id already seen, exclusive
+     * @param pageable the page size (page number is always 0 for keyset paging)
+     * @return List of Messages with message_id greater than after
+     */
+    @Query(SELECT_VIEW + " WHERE c.message_id > ?1 ORDER BY c.message_id")
+    List<Message> findMessagesAfter(Integer after, Pageable pageable);
+
+    /**
+     * Stream every message in message_id order through a scrolled cursor instead of loading them into a List.
+     * Must be called inside a transaction, and the stream must be closed when done.
+     * @return Stream of all Messages
+     */
+    @QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true") })
+    @Query("SELECT c FROM Message c ORDER BY c.message_id")
+    Stream<Message> streamAllMessages();
+
+    /**
+     * Delete a message in a single statement, without loading it first.
+     * @param message_id the message to delete
+     * @return int number of rows deleted (1 if the message existed, 0 if not)
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Message c WHERE c.message_id = ?1")
+    int deleteMessageById(Integer message_id);
+
+    /**
+     * Update the text of a message in a single statement, without loading it first, and increment its version.
+     * @param message_id the message to update
+     * @param message_text the new message text
+     * @return int number of rows updated (1 if the message exists, 0 if not)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Message c SET c.message_text = ?2, c.version = c.version + 1 WHERE c.message_id = ?1")
+    int updateMessageText(Integer message_id, String message_text);
+
+    /**
+     * Compare-and-set the text of a message: update it and increment its version in a single statement, only if
+     * the version is still the one the client read. No lock is held between the client's read and this update.
+     * @param message_id the message to update
+     * @param message_text the new message text
+     * @param version the version the update is based on
+     * @return int number of rows updated (1 if the message exists at that version, 0 if not)
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Message c SET c.message_text = ?2, c.version = c.version + 1 WHERE c.message_id = ?1 "
+        + "AND c.version = ?3")
+    int updateMessageTextIfVersion(Integer message_id, String message_text, Integer version);
+
+    /**
+     * @param message_id the message to look up
+     * @return Optional with the current version of the message, empty if it does not exist
+     */
+    @Query("SELECT c.version FROM Message c WHERE c.message_id = ?1")
+    Optional<Integer> findVersionById(Integer message_id);
+
+    /**
+     * @param message_id the message to look up
+     * @return Optional with the account_id of the user who posted the message, empty if it does not exist
+     */
+    @Query("SELECT c.posted_by FROM Message c WHERE c.message_id = ?1")
+    Optional<Integer> findPostedById(Integer message_id);
 }
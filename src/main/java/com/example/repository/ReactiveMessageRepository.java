@@ -0,0 +1,124 @@
+package com.example.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+
+import com.example.config.ReactiveConfig;
+import com.example.entity.Message;
+
+import io.r2dbc.spi.Row;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive, read-only counterpart of MessageRepository over R2DBC, for the reactive read endpoints. On H2 the
+ * driver runs each query synchronously on the subscribing thread, see ReactiveMessageController.
+ * The queries mirror the MessageRepository queries of the same name, so both paths use the same indexes and
+ * return messages in the same order. Writes stay on MessageRepository.
+ */
+@Repository
+@ConditionalOnExpression(ReactiveConfig.ENABLED)
+public class ReactiveMessageRepository {
+
+    private static final String COLUMNS = "SELECT message_id, posted_by, message_text, time_posted_epoch, version FROM message ";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveMessageRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * @param message_id the message to find
+     * @return Mono of the Message, empty if it does not exist
+     */
+    public Mono<Message> findById(int message_id) {
+        return databaseClient.sql(COLUMNS + "WHERE message_id = :message_id")
+            .bind("message_id", message_id)
+            .map(ReactiveMessageRepository::toMessage)
+            .one();
+    }
+
+    /**
+     * Find the first page of messages posted by an account, newest first. See MessageRepository.
+     * @param posted_by the account_id of the user who posted the message
+     * @param limit the page size
+     * @return Flux of Messages posted by the user
+     */
+    public Flux<Message> findAllMessagesByPostedBy(int posted_by, int limit) {
+        return databaseClient.sql(COLUMNS + "WHERE posted_by = :posted_by "
+                + "ORDER BY time_posted_epoch DESC, message_id LIMIT :limit")
+            .bind("posted_by", posted_by)
+            .bind("limit", limit)
+            .map(ReactiveMessageRepository::toMessage)
+            .all();
+    }
+
+    /**
+     * Find the next page of timed messages posted by an account after a keyset position. See MessageRepository.
+     * @param posted_by the account_id of the user who posted the message
+     * @param time_posted_epoch the time_posted_epoch of the last message already seen
+     * @param message_id the message_id of the last message already seen
+     * @param limit the page size
+     * @return Flux of Messages posted by the user after the position, excluding messages without a time_posted_epoch
+     */
+    public Flux<Message> findMessagesByPostedByAfter(int posted_by, long time_posted_epoch, int message_id, int limit) {
+        return databaseClient.sql(COLUMNS + "WHERE posted_by = :posted_by AND time_posted_epoch <= :time_posted_epoch "
+                + "AND (time_posted_epoch < :time_posted_epoch OR message_id > :message_id) "
+                + "ORDER BY time_posted_epoch DESC, message_id LIMIT :limit")
+            .bind("posted_by", posted_by)
+            .bind("time_posted_epoch", time_posted_epoch)
+            .bind("message_id", message_id)
+            .bind("limit", limit)
+            .map(ReactiveMessageRepository::toMessage)
+            .all();
+    }
+
+    /**
+     * Find the messages without a time_posted_epoch posted by an account, which end its timeline. See MessageRepository.
+     * @param posted_by the account_id of the user who posted the message
+     * @param message_id the last untimed message_id already seen, exclusive
+     * @param limit the page size
+     * @return Flux of untimed Messages posted by the user in message_id order
+     */
+    public Flux<Message> findUntimedMessagesByPostedByAfter(int posted_by, int message_id, int limit) {
+        return databaseClient.sql(COLUMNS + "WHERE posted_by = :posted_by AND time_posted_epoch IS NULL "
+                + "AND message_id > :message_id ORDER BY message_id LIMIT :limit")
+            .bind("posted_by", posted_by)
+            .bind("message_id", message_id)
+            .bind("limit", limit)
+            .map(ReactiveMessageRepository::toMessage)
+            .all();
+    }
+
+    /**
+     * Find the next page of messages after a keyset position, in message_id order. See MessageRepository.
+     * @param after the last message_id already seen, exclusive
+     * @param limit the page size
+     * @return Flux of Messages with message_id greater than after
+     */
+    public Flux<Message> findMessagesAfter(int after, int limit) {
+        return databaseClient.sql(COLUMNS + "WHERE message_id > :after ORDER BY message_id LIMIT :limit")
+            .bind("after", after)
+            .bind("limit", limit)
+            .map(ReactiveMessageRepository::toMessage)
+            .all();
+    }
+
+    /**
+     * Stream every message in message_id order. Rows are read as the subscriber requests them.
+     * @return Flux of all Messages
+     */
+    public Flux<Message> streamAllMessages() {
+        return databaseClient.sql(COLUMNS + "ORDER BY message_id")
+            .map(ReactiveMessageRepository::toMessage)
+            .all();
+    }
+
+    private static Message toMessage(Row row) {
+        return new Message(row.get("message_id", Integer.class), row.get("posted_by", Integer.class),
+            row.get("message_text", String.class), row.get("time_posted_epoch", Long.class),
+            row.get("version", Integer.class));
+    }
+}
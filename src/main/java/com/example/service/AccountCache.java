@@ -0,0 +1,130 @@
+package com.example.service;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.entity.Account;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Username lookups for login and registration, answered from memory where possible.
+ *
+ * A UsernameFilter holding every registered username answers lookups of unknown usernames without the database, 
+ * and a bounded cache holds recently used accounts, with their password hash. Entries are copies; callers must 
+ * not modify the accounts they get from the cache.
+ */
+@Component
+public class AccountCache implements MeterBinder {
+
+    private final long expectedUsernames;
+    private final double falsePositiveRate;
+    private final Cache<String, Account> cache;
+    private volatile UsernameFilter usernames;
+
+    /**
+     * @param maximumSize the most accounts kept in the cache
+     * @param timeToLive how long an account stays cached after it was loaded or written
+     * @param expectedUsernames number of usernames the filter is sized for when it is loaded
+     * @param falsePositiveRate rate of unknown usernames the filter still sends to the database
+     */
+    public AccountCache(@Value("${app.account-cache.maximum-size:10000}") long maximumSize,
+                        @Value("${app.account-cache.time-to-live:10m}") Duration timeToLive,
+                        @Value("${app.account-cache.expected-usernames:1000000}") long expectedUsernames,
+                        @Value("${app.account-cache.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.expectedUsernames = expectedUsernames;
+        this.falsePositiveRate = falsePositiveRate;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive)
+            .recordStats()
+            .build();
+        this.usernames = new UsernameFilter(expectedUsernames, falsePositiveRate);
+    }
+
+    /**
+     * Find an account by username, loading it on a cache miss unless the username is certainly not registered.
+     * 
+     * @param username the username, may be null
+     * @param loader loads the account from the database, returns null if it does not exist
+     * @return Account the account with its password hash, null if it does not exist. Missing accounts are not cached.
+     */
+    public Account find(String username, Function<String, Account> loader) {
+        if(!usernames.mightContain(username)) {
+            return null;
+        }
+        return cache.get(username, name -> copyOf(loader.apply(name)));
+    }
+
+    /**
+     * @param username the username
+     * @return Account the cached account, null if it is not cached
+     */
+    public Account getIfPresent(String username) {
+        return cache.getIfPresent(username);
+    }
+
+    /**
+     * Record a username before its account is inserted, so no lookup can miss it once the insert commits. 
+     * A reservation for an insert that then fails only costs a database lookup.
+     * 
+     * @param username the username about to be registered
+     */
+    public void reserve(String username) {
+        usernames.add(username);
+    }
+
+    /**
+     * Cache an account that was just registered.
+     * 
+     * @param account the account as stored in the database, with account_id and password hash
+     */
+    public void put(Account account) {
+        usernames.add(account.getUsername());
+        cache.put(account.getUsername(), copyOf(account));
+    }
+
+    /**
+     * Replace the username filter with one holding exactly the given usernames, and empty the cache.
+     * 
+     * @param registered every registered username
+     */
+    public void reset(Iterable<String> registered) {
+        UsernameFilter loaded = new UsernameFilter(expectedUsernames, falsePositiveRate);
+        for(String username : registered) {
+            loaded.add(username);
+        }
+        usernames = loaded;
+        cache.invalidateAll();
+    }
+
+    /**
+     * Publish the hit, miss and eviction counters as cache.* metrics with cache=accounts.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "accounts");
+    }
+
+    /**
+     * @return CacheStats hit, miss and eviction counters of the account cache since startup
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static Account copyOf(Account account) {
+        if(account == null) {
+            return null;
+        }
+        return new Account(account.getAccount_id(), account.getUsername(), account.getPassword());
+    }
+}
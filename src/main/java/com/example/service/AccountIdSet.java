@@ -0,0 +1,72 @@
+package com.example.service;
+
+import java.util.BitSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread safe set of existing account_ids, stored as a bitmap indexed by account_id.
+ *
+ * Account ids come from a sequence and are dense, so one bit per possible id is far smaller than a set of 
+ * boxed Integers and a lookup is a single array read.
+ */
+public class AccountIdSet {
+
+    private final BitSet ids = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param account_id account identifier, may be null
+     * @return boolean true if the account exists
+     */
+    public boolean contains(Integer account_id) {
+        if(account_id == null || account_id < 0) {
+            return false;
+        }
+        lock.readLock().lock();
+        try {
+            return ids.get(account_id);
+        }
+        finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param account_id identifier of an account that now exists
+     */
+    public void add(int account_id) {
+        if(account_id < 0) {
+            throw new IllegalArgumentException("account_id must not be negative: " + account_id);
+        }
+        lock.writeLock().lock();
+        try {
+            ids.set(account_id);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the contents of the set.
+     * 
+     * @param account_ids identifiers of all existing accounts
+     */
+    public void reset(Iterable<Integer> account_ids) {
+        BitSet loaded = new BitSet();
+        for(Integer account_id : account_ids) {
+            if(account_id >= 0) {
+                loaded.set(account_id);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            ids.clear();
+            ids.or(loaded);
+        }
+        finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -1,21 +1,70 @@
 package com.example.service;
 
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.example.entity.Account;
 import com.example.exception.DataConflictException;
 import com.example.exception.InvalidInputException;
+import com.example.exception.ServiceUnavailableException;
+import com.example.metrics.MetricsConfig;
 import com.example.repository.AccountRepository;
+import com.example.repository.AccountStatsRepository;
+
+import io.micrometer.core.annotation.Timed;
 
 @Service
-public class AccountService {
+public class AccountService implements SmartInitializingSingleton {
 
     private AccountRepository accountRepository;
+    private PasswordHasher passwordHasher;
+    private AccountCache accountCache;
+    private AccountStatsRepository accountStatsRepository;
+    private TransactionTemplate transactionTemplate;
+    private AccountIdSet accountIds = new AccountIdSet();
 
     @Autowired
-    public AccountService(AccountRepository accountRepository) {
+    public AccountService(AccountRepository accountRepository, PasswordHasher passwordHasher, AccountCache accountCache,
+                          AccountStatsRepository accountStatsRepository, PlatformTransactionManager transactionManager) {
         this.accountRepository = accountRepository;
+        this.passwordHasher = passwordHasher;
+        this.accountCache = accountCache;
+        this.accountStatsRepository = accountStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Load the ids and usernames of the existing accounts once every bean, including the database initialization, 
+     * is ready and before the web server accepts requests.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        reloadAccounts();
+    }
+
+    /**
+     * Reload the existing account ids and usernames from the database. Needed only when accounts are inserted 
+     * without going through register, such as bulk loads.
+     */
+    public void reloadAccounts() {
+        accountIds.reset(accountRepository.findAllAccountIds());
+        accountCache.reset(accountRepository.findAllUsernames());
+    }
+
+    /**
+     * Check whether an account exists without a database round trip. The set is seeded at startup and updated 
+     * by register, so it can be used to reject references to unknown accounts before touching the database.
+     * 
+     * @param account_id account identifier, may be null
+     * @return boolean true if the account exists
+     */
+    public boolean accountExists(Integer account_id) {
+        return accountIds.contains(account_id);
     }
 
     /**
@@ -23,12 +72,19 @@ public class AccountService {
      * The registration will be successful if and only if the username is not blank, the password is at least 4 characters long, 
      * and an Account with that username does not already exist. The new account will be saved to the database.
      * 
+     * The account is inserted directly and the unique constraint on username detects duplicates, so the happy path 
+     * is a single insert, plus the account's empty AccountStats in the same transaction, and two concurrent 
+     * registrations of the same username cannot both succeed.
+     * A username already in the AccountCache is rejected without the database. Only a hash of the password is stored.
+     * 
      * @param account contains username and password, but not account_id
-     * @return Account contains the account_id of the new database record.
-     * @throws DataConflictException if the username or account_id already exists
+     * @return Account contains the account_id of the new database record, and the password as submitted.
+     * @throws DataConflictException if the username already exists
      * @throws InvalidInputException if the username or password do not meed requirements.
+     * @throws ServiceUnavailableException if the password hashing pool is overloaded
      */
-    public Account register(Account account) throws InvalidInputException, DataConflictException {
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public Account register(Account account) throws InvalidInputException, DataConflictException, ServiceUnavailableException {
         // validate input
         if(account == null || account.getUsername() == null || account.getPassword() == null
             || account.getUsername().length() < 1 || account.getUsername().length() > 255
@@ -36,14 +92,52 @@ public class AccountService {
         {
             throw new InvalidInputException();
         }
-       // check for data conflict 
-       Account test = accountRepository.findByUsername(account.getUsername());
-       if(test != null) {
-        throw new DataConflictException();
-       }
-        //Account newAccount = accountRepository.createAccount(account.getUsername(), account.getPassword());
-        Account newAccount = accountRepository.save(account);
-        return newAccount;
+        if(accountCache.getIfPresent(account.getUsername()) != null) {
+            throw new DataConflictException();
+        }
+        // a new Account has no account_id, so save() always inserts and never merges into an existing account
+        String password = account.getPassword();
+        Account newAccount = new Account(account.getUsername(), passwordHasher.hash(password));
+        accountCache.reserve(newAccount.getUsername());
+        try {
+            Account saved = transactionTemplate.execute(status -> {
+                Account inserted = accountRepository.save(newAccount);
+                accountStatsRepository.createStats(inserted.getAccount_id());
+                return inserted;
+            });
+            accountIds.add(saved.getAccount_id());
+            accountCache.put(saved);
+            return new Account(saved.getAccount_id(), saved.getUsername(), password);
+        }
+        catch(DataIntegrityViolationException e) {
+            if(violatesUniqueUsername(e)) {
+                throw new DataConflictException();
+            }
+            // any other violation, such as a generated account_id that is already taken, is not the client's fault:
+            // the controller answers it with a server error
+            throw e;
+        }
+    }
+
+    /**
+     * @param e the exception thrown by the registration's insert
+     * @return boolean true if the database rejected the insert because of the unique constraint on username, as 
+     *         reported by the Hibernate dialect. The dialect may qualify and quote the name, and H2's keeps the rest
+     *         of the error message after it, so only the first word's last segment is compared.
+     */
+    private static boolean violatesUniqueUsername(DataIntegrityViolationException e) {
+        for(Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if(cause instanceof ConstraintViolationException) {
+                String constraint = ((ConstraintViolationException) cause).getConstraintName();
+                if(constraint == null) {
+                    return false;
+                }
+                constraint = constraint.replace("\"", "").trim().split("\\s", 2)[0];
+                constraint = constraint.substring(constraint.lastIndexOf('.') + 1);
+                return constraint.equalsIgnoreCase(AccountRepository.USERNAME_CONSTRAINT);
+            }
+        }
+        return false;
     }
 
     /**
@@ -55,12 +149,23 @@ public class AccountService {
     - The login will be successful if and only if the username and password provided in the request body JSON 
     match a real account existing on the database. If successful, the response body should contain a JSON of the account in the response body, including its account_id. The response status should be 200 OK, which is the default.
     - If the login is not successful, the response status should be 401. (Unauthorized)
+    - The password is verified against the stored hash on the password hashing pool. If the pool is overloaded, 
+      the response status should be 503. (Service Unavailable)
+    - The account is looked up through the AccountCache, so unknown usernames are rejected without the database. 
+      They are still verified against a dummy hash, so a login takes as long whether or not the username exists.
     */
-    public Account login(Account account) {
-        Account newAccount = accountRepository.findByUsername(account.getUsername());
-        if(newAccount != null && newAccount.getPassword() != null 
-            && newAccount.getPassword().equals(account.getPassword())) {
-            return newAccount;
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public Account login(Account account) throws InvalidInputException, ServiceUnavailableException {
+        Account newAccount = accountCache.find(account.getUsername(), accountRepository::findByUsername);
+        if(account.getPassword() == null) {
+            throw new InvalidInputException();
+        }
+        // an unknown username still pays for a hash, so it takes as long as a wrong password for a known one
+        boolean verified = newAccount != null && newAccount.getPassword() != null
+            ? passwordHasher.verify(account.getPassword(), newAccount.getPassword())
+            : passwordHasher.verifyUnknown(account.getPassword());
+        if(verified) {
+            return new Account(newAccount.getAccount_id(), newAccount.getUsername(), account.getPassword());
         }
         else {
             throw new InvalidInputException();
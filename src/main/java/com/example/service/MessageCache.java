@@ -0,0 +1,104 @@
+package com.example.service;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.entity.Message;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded in-process cache of single messages by message_id, evicting by size and by time since the entry was written.
+ *
+ * Entries are detached copies, so a cached message is never tied to a persistence context. Callers must not 
+ * modify the messages they get from the cache.
+ */
+@Component
+public class MessageCache implements MeterBinder {
+
+    private Cache<Integer, Message> cache;
+
+    /**
+     * @param maximumSize the most messages kept in the cache
+     * @param timeToLive how long a message stays cached after it was loaded or written
+     */
+    public MessageCache(@Value("${app.message-cache.maximum-size:10000}") long maximumSize,
+                        @Value("${app.message-cache.time-to-live:60s}") Duration timeToLive) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(timeToLive)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Get a message from the cache, loading it on a miss.
+     * 
+     * @param message_id message identifier
+     * @param loader loads the message from the database, returns null if it does not exist
+     * @return Message the cached message, null if it does not exist. Missing messages are not cached.
+     */
+    public Message get(int message_id, Function<Integer, Message> loader) {
+        return cache.get(message_id, id -> copyOf(loader.apply(id)));
+    }
+
+    /**
+     * Get a message from the cache without loading it, for callers that load misses asynchronously. Such loads
+     * are not put back, because a write could invalidate the message while the load is in flight.
+     *
+     * @param message_id message identifier
+     * @return Message the cached message, null if it is not cached
+     */
+    public Message getIfPresent(int message_id) {
+        return cache.getIfPresent(message_id);
+    }
+
+    /**
+     * Replace the cached copy of a message that was just written.
+     * 
+     * @param message the message as stored in the database, with message_id
+     */
+    public void put(Message message) {
+        cache.put(message.getMessage_id(), copyOf(message));
+    }
+
+    /**
+     * Drop a message from the cache after it was updated or deleted.
+     * 
+     * @param message_id message identifier
+     */
+    public void invalidate(int message_id) {
+        cache.invalidate(message_id);
+    }
+
+    /**
+     * Publish the hit, miss and eviction counters as cache.* metrics with cache=messages.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "messages");
+    }
+
+    /**
+     * @return CacheStats hit, miss and eviction counters since startup
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    private static Message copyOf(Message message) {
+        if(message == null) {
+            return null;
+        }
+        return new Message(message.getMessage_id(), message.getPosted_by(), message.getMessage_text(), 
+            message.getTime_posted_epoch(), message.getVersion());
+    }
+}
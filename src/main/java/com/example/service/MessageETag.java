@@ -0,0 +1,98 @@
+package com.example.service;
+
+import com.example.entity.Message;
+import com.example.exception.InvalidInputException;
+
+/**
+ * Entity tags for the message read endpoints, computed from message ids and versions rather than the serialized
+ * body, so a conditional GET that matches is answered without writing any JSON.
+ *
+ * A single message gets a strong tag, "{message_id}-{version}": its JSON is fully determined by its fields, and it
+ * is below server.compression.min-response-size, so its bytes do not change with the content coding. The same tag
+ * is accepted in If-Match by PATCH /messages/{message_id}. A page gets a weak tag, because the same page can be
+ * sent plain or gzipped.
+ */
+public final class MessageETag {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private MessageETag() {
+    }
+
+    /**
+     * @param message a message read from the database, with its message_id and version
+     * @return String strong entity tag of the message
+     */
+    public static String of(Message message) {
+        return of(message.getMessage_id(), message.getVersion());
+    }
+
+    /**
+     * @param message_id message identifier
+     * @param version a version of the message
+     * @return String strong entity tag of the message at that version
+     */
+    public static String of(int message_id, int version) {
+        return "\"" + message_id + "-" + version + "\"";
+    }
+
+    /**
+     * @param page a page of messages read from the database
+     * @return String weak entity tag of the ids and versions of the messages on the page and the next cursor
+     */
+    public static String of(MessagePage page) {
+        long hash = FNV_OFFSET_BASIS;
+        for(Message message : page.getMessages()) {
+            hash = hash(hash, message.getMessage_id());
+            hash = hash(hash, message.getVersion());
+        }
+        String nextCursor = page.getNextCursor();
+        if(nextCursor != null) {
+            for(int i = 0; i < nextCursor.length(); i++) {
+                hash = mix(hash, nextCursor.charAt(i));
+            }
+        }
+        return "W/\"" + page.getMessages().size() + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Parse the version out of a strong entity tag created by of(Message).
+     *
+     * @param message_id the message the tag must belong to
+     * @param eTag entity tag from an If-Match header
+     * @return int the version in the tag
+     * @throws InvalidInputException if the tag is not a strong tag of this message
+     */
+    public static int versionOf(int message_id, String eTag) throws InvalidInputException {
+        String prefix = "\"" + message_id + "-";
+        String tag = eTag.trim();
+        if(!tag.startsWith(prefix) || !tag.endsWith("\"") || tag.length() <= prefix.length() + 1) {
+            throw new InvalidInputException();
+        }
+        try {
+            return Integer.parseInt(tag.substring(prefix.length(), tag.length() - 1));
+        }
+        catch(NumberFormatException e) {
+            throw new InvalidInputException();
+        }
+    }
+
+    /**
+     * One step of 64-bit FNV-1a per byte of the value. A null value hashes differently from any number.
+     */
+    private static long hash(long hash, Integer value) {
+        if(value == null) {
+            return mix(hash, 0);
+        }
+        hash = mix(hash, 1);
+        for(int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+            hash = mix(hash, (value >>> shift) & 0xff);
+        }
+        return hash;
+    }
+
+    private static long mix(long hash, int octet) {
+        return (hash ^ octet) * FNV_PRIME;
+    }
+}
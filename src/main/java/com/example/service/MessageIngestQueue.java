@@ -0,0 +1,314 @@
+package com.example.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.entity.Message;
+import com.example.exception.InvalidInputException;
+import com.example.exception.ServiceUnavailableException;
+import com.example.repository.AccountStatsRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Opt-in write-behind ingestion for POST /messages, app.message-ingest.enabled=true.
+ *
+ * A validated message gets its message_id from a MessageIdAllocator and is put on a bounded queue. A single writer
+ * thread takes everything that is waiting, up to max-batch-size messages, and inserts it as one JDBC batch in one
+ * transaction, together with the AccountStats updates, so a spike of posts pays for one commit per batch instead
+ * of one per request. Batches grow by themselves under load: whatever arrives while a batch is being committed
+ * goes into the next one. With a max-wait, the writer also holds a batch that is not full for up to that long after
+ * its first message, trading latency for fewer commits when posts trickle in.
+ *
+ * With durable-ack, the default, the request waits until its batch has committed, and sees a rejected message as
+ * an InvalidInputException like the direct insert does. Without it, the request returns as soon as the message is
+ * queued, and a message that is lost to a crash or rejected by the database is only counted in app.ingest.failed.
+ * In either mode a message is cached, and so readable, only once it is committed.
+ *
+ * When the queue is full the message is rejected with a ServiceUnavailableException.
+ */
+@Component
+@ConditionalOnProperty(name = "app.message-ingest.enabled", havingValue = "true")
+public class MessageIngestQueue {
+
+    private static final String INSERT = "insert into message (message_id, posted_by, message_text, time_posted_epoch, "
+        + "version) values (?, ?, ?, ?, 0)";
+    private static final long POLL_MILLIS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MessageCache messageCache;
+    private final AccountStatsRepository accountStatsRepository;
+    private final MessageIdAllocator idAllocator;
+    private final BlockingQueue<PendingMessage> queue;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final boolean durableAck;
+    private final long ackTimeoutMillis;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final DistributionSummary batchSizes;
+    private final Timer commits;
+    private final Counter rejected;
+    private final Counter failed;
+
+    /**
+     * @param queueCapacity the most messages waiting to be written before new ones are rejected
+     * @param maxBatchSize the most messages inserted in one transaction
+     * @param maxWait longest the writer waits for a batch to fill after its first message, zero to write at once
+     * @param durableAck true to return from submit only after the message is committed
+     * @param ackTimeout longest submit waits for the commit with durable-ack
+     */
+    public MessageIngestQueue(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              MessageCache messageCache, AccountStatsRepository accountStatsRepository,
+                              MeterRegistry registry,
+                              @Value("${app.message-ingest.queue-capacity:10000}") int queueCapacity,
+                              @Value("${app.message-ingest.max-batch-size:500}") int maxBatchSize,
+                              @Value("${app.message-ingest.max-wait:0ms}") Duration maxWait,
+                              @Value("${app.message-ingest.durable-ack:true}") boolean durableAck,
+                              @Value("${app.message-ingest.ack-timeout:5s}") Duration ackTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.messageCache = messageCache;
+        this.accountStatsRepository = accountStatsRepository;
+        this.idAllocator = new MessageIdAllocator(jdbcTemplate);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.durableAck = durableAck;
+        this.ackTimeoutMillis = ackTimeout.toMillis();
+
+        Gauge.builder("app.ingest.queue.depth", queue, BlockingQueue::size)
+            .description("Messages waiting to be written")
+            .register(registry);
+        this.batchSizes = DistributionSummary.builder("app.ingest.batch.size")
+            .description("Messages inserted per commit")
+            .register(registry);
+        this.commits = Timer.builder("app.ingest.commit")
+            .description("Time to insert and commit a batch")
+            .register(registry);
+        this.rejected = Counter.builder("app.ingest.rejected")
+            .description("Messages rejected because the queue was full")
+            .register(registry);
+        this.failed = Counter.builder("app.ingest.failed")
+            .description("Queued messages that could not be written")
+            .register(registry);
+
+        this.writer = new Thread(this::writeLoop, "message-ingest-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Assign a message_id to a validated message and queue it for insertion.
+     *
+     * @param message a valid message, its message_id is overwritten
+     * @return Message the message with its message_id and version. With durable-ack it has been committed.
+     * @throws ServiceUnavailableException if the queue is full, or with durable-ack if the commit did not complete
+     *         within the timeout or failed for a reason other than the message. A message that timed out may still
+     *         be written later.
+     * @throws InvalidInputException with durable-ack, if the database rejected the message
+     */
+    public Message submit(Message message) throws ServiceUnavailableException, InvalidInputException {
+        message.setMessage_id(idAllocator.nextId());
+        message.setVersion(0);
+        PendingMessage pending = new PendingMessage(message);
+        if(!running || !queue.offer(pending)) {
+            rejected.increment();
+            throw new ServiceUnavailableException();
+        }
+        if(!durableAck) {
+            return message;
+        }
+        try {
+            return pending.committed.get(ackTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        catch(TimeoutException e) {
+            throw new ServiceUnavailableException();
+        }
+        catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException();
+        }
+        catch(ExecutionException e) {
+            if(e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("message ingestion failed", e.getCause());
+        }
+    }
+
+    /**
+     * Stop accepting messages and let the writer commit the ones already queued. Messages still queued when the 
+     * writer has not finished within the ack timeout are failed, so no caller waits on a message nobody will write.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(ackTimeoutMillis);
+        List<PendingMessage> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        for(PendingMessage pending : abandoned) {
+            failed(pending, new ServiceUnavailableException());
+        }
+    }
+
+    private void writeLoop() {
+        List<PendingMessage> batch = new ArrayList<>(maxBatchSize);
+        while(running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if(first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+                write(batch);
+            }
+            catch(InterruptedException e) {
+                return;
+            }
+            catch(RuntimeException e) {
+                // anything write does not expect fails this batch only: the writer is the only thread that empties 
+                // the queue, so letting it die would turn every later post into a 503
+                for(PendingMessage pending : batch) {
+                    failed(pending, new ServiceUnavailableException());
+                }
+            }
+            finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Add waiting messages to a batch until it is full, or until max-wait has passed since its first message or 
+     * the queue is shutting down.
+     */
+    private void fill(List<PendingMessage> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while(batch.size() < maxBatchSize && running) {
+            long remaining = deadline - System.nanoTime();
+            if(remaining <= 0) {
+                return;
+            }
+            PendingMessage next = queue.poll(Math.min(remaining, TimeUnit.MILLISECONDS.toNanos(POLL_MILLIS)), 
+                TimeUnit.NANOSECONDS);
+            if(next != null) {
+                batch.add(next);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+            }
+        }
+    }
+
+    private void write(List<PendingMessage> batch) {
+        long start = System.nanoTime();
+        try {
+            List<Message> messages = new ArrayList<>(batch.size());
+            for(PendingMessage pending : batch) {
+                messages.add(pending.message);
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT, messages, messages.size(), MessageIngestQueue::bind);
+                accountStatsRepository.addMessages(messages);
+            });
+            for(PendingMessage pending : batch) {
+                committed(pending);
+            }
+        }
+        catch(DataIntegrityViolationException e) {
+            // a message that passed validation was still rejected, such as one from an account the filter did not
+            // know to be missing: insert the batch one message at a time so only the offending ones fail
+            for(PendingMessage pending : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        jdbcTemplate.update(INSERT, statement -> bind(statement, pending.message));
+                        accountStatsRepository.addMessage(pending.message);
+                    });
+                    committed(pending);
+                }
+                catch(DataIntegrityViolationException rejected) {
+                    failed(pending, new InvalidInputException());
+                }
+                catch(DataAccessException | TransactionException unavailable) {
+                    failed(pending, new ServiceUnavailableException());
+                }
+            }
+        }
+        catch(DataAccessException | TransactionException e) {
+            for(PendingMessage pending : batch) {
+                failed(pending, new ServiceUnavailableException());
+            }
+        }
+        commits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+    }
+
+    private void committed(PendingMessage pending) {
+        try {
+            messageCache.put(pending.message);
+        }
+        catch(RuntimeException e) {
+            // the message is committed either way, so it must not be reported as failed: leave it to be loaded 
+            // from the database by the next read
+            messageCache.invalidate(pending.message.getMessage_id());
+        }
+        pending.committed.complete(pending.message);
+    }
+
+    private void failed(PendingMessage pending, RuntimeException reason) {
+        // a message whose commit was already acknowledged stays acknowledged
+        if(pending.committed.completeExceptionally(reason)) {
+            failed.increment();
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Message message) throws SQLException {
+        statement.setInt(1, message.getMessage_id());
+        statement.setInt(2, message.getPosted_by());
+        statement.setString(3, message.getMessage_text());
+        if(message.getTime_posted_epoch() == null) {
+            statement.setNull(4, Types.BIGINT);
+        }
+        else {
+            statement.setLong(4, message.getTime_posted_epoch());
+        }
+    }
+
+    private static class PendingMessage {
+        final Message message;
+        final CompletableFuture<Message> committed = new CompletableFuture<>();
+
+        PendingMessage(Message message) {
+            this.message = message;
+        }
+    }
+}
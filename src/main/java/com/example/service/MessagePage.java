@@ -0,0 +1,112 @@
+package com.example.service;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+
+import com.example.entity.Message;
+import com.example.exception.InvalidInputException;
+
+/**
+ * One page of messages returned by a keyset (cursor) query.
+ *
+ * The cursor handed to clients is opaque: it is a url-safe encoding of the position of the last message
+ * on the page, so the next page can be read with an index seek instead of an offset scan.
+ */
+public class MessagePage {
+
+    private List<Message> messages;
+    private String nextCursor;
+
+    public MessagePage(List<Message> messages, String nextCursor) {
+        this.messages = messages;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * @return List<Message> the messages on this page, empty if there are none.
+     */
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    /**
+     * @return String cursor for the page after this one, null if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Encode the position of a message_id as an opaque cursor.
+     *
+     * @param message_id the last message_id on a page
+     * @return String url-safe cursor
+     */
+    public static String encodeCursor(int message_id) {
+        byte[] bytes = ByteBuffer.allocate(Integer.BYTES).putInt(message_id).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Encode the position of a message in an account timeline (time_posted_epoch newest first, then message_id)
+     * as an opaque cursor.
+     *
+     * @param message the last message on a timeline page
+     * @return String url-safe cursor
+     */
+    public static String encodeTimelineCursor(Message message) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Long.BYTES + Integer.BYTES);
+        Long time_posted_epoch = message.getTime_posted_epoch();
+        buffer.put((byte) (time_posted_epoch == null ? 0 : 1));
+        buffer.putLong(time_posted_epoch == null ? 0 : time_posted_epoch);
+        buffer.putInt(message.getMessage_id());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decode a cursor created by encodeTimelineCursor.
+     *
+     * @param cursor opaque cursor from a previous timeline page
+     * @return Message holding only the message_id and time_posted_epoch (null for untimed messages) the cursor points at
+     * @throws InvalidInputException if the cursor is malformed
+     */
+    public static Message decodeTimelineCursor(String cursor) throws InvalidInputException {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if(bytes.length != 1 + Long.BYTES + Integer.BYTES) {
+                throw new InvalidInputException();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            boolean timed = buffer.get() != 0;
+            long time_posted_epoch = buffer.getLong();
+            Message position = new Message();
+            position.setTime_posted_epoch(timed ? Long.valueOf(time_posted_epoch) : null);
+            position.setMessage_id(buffer.getInt());
+            return position;
+        }
+        catch(IllegalArgumentException e) {
+            throw new InvalidInputException();
+        }
+    }
+
+    /**
+     * Decode a cursor created by encodeCursor.
+     *
+     * @param cursor opaque cursor from a previous page
+     * @return int the message_id the cursor points at
+     * @throws InvalidInputException if the cursor is malformed
+     */
+    public static int decodeCursor(String cursor) throws InvalidInputException {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+            if(bytes.length != Integer.BYTES) {
+                throw new InvalidInputException();
+            }
+            return ByteBuffer.wrap(bytes).getInt();
+        }
+        catch(IllegalArgumentException e) {
+            throw new InvalidInputException();
+        }
+    }
+}
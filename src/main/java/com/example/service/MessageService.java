@@ -1,27 +1,70 @@
 package com.example.service;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.example.dto.BatchItemResult;
+import com.example.entity.AccountStats;
 import com.example.entity.Message;
 import com.example.exception.InvalidInputException;
-import com.example.repository.AccountRepository;
+import com.example.exception.ServiceUnavailableException;
+import com.example.exception.VersionConflictException;
+import com.example.metrics.MetricsConfig;
+import com.example.repository.AccountStatsRepository;
 import com.example.repository.MessageRepository;
 
+import io.micrometer.core.annotation.Timed;
 import jdk.jfr.Timestamp;
 
 @Service
 public class MessageService {
 
+    /** Page size used when the client does not ask for one. */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    /** Largest page size a client may ask for. */
+    public static final int MAX_PAGE_SIZE = 1000;
+    /** Number of messages exported between clears of the persistence context. */
+    public static final int EXPORT_BATCH_SIZE = 500;
+    /** Largest number of messages accepted by postMessages. */
+    public static final int MAX_BATCH_SIZE = 1000;
+
     private MessageRepository messageRepository;
+    private AccountService accountService;
+    private EntityManager entityManager;
+    private MessageCache messageCache;
+    private MessageIngestQueue messageIngestQueue;
+    private AccountStatsRepository accountStatsRepository;
+    private TransactionTemplate transactionTemplate;
 
+    /**
+     * @param messageIngestQueue present when write-behind ingestion is enabled, see MessageIngestQueue
+     */
     @Autowired
-    public MessageService(MessageRepository messageRepository) {
+    public MessageService(MessageRepository messageRepository, AccountService accountService, 
+                          EntityManager entityManager, MessageCache messageCache,
+                          AccountStatsRepository accountStatsRepository, PlatformTransactionManager transactionManager,
+                          Optional<MessageIngestQueue> messageIngestQueue) {
         this.messageRepository = messageRepository;
+        this.accountService = accountService;
+        this.entityManager = entityManager;
+        this.messageCache = messageCache;
+        this.accountStatsRepository = accountStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.messageIngestQueue = messageIngestQueue.orElse(null);
     }
     
     /**
@@ -30,17 +73,30 @@ public class MessageService {
      * The creation of the message will be successful if and only if the message_text is not blank, 
      * is not over 255 characters, and posted_by refers to a real, existing user. 
      * 
+     * The message and the update of the account's AccountStats are committed together, before the message is cached.
+     * With write-behind ingestion enabled, the message is queued and inserted in a batch with others instead.
+     * 
      * @param message The message to insert into the database, no message_id
      * @return Message The saved message with message_id
      * @throws InvalidInputException if the message fields do not meet requirements
+     * @throws ServiceUnavailableException with write-behind ingestion, if the queue is full or the commit timed out
     */
+    @Timed(MetricsConfig.SERVICE_TIMER)
     public Message postMessage(Message message) throws InvalidInputException{
-        if(message != null && message.getMessage_text() != null && message.getPosted_by() != null
-            && message.getMessage_text().length() <= 255 && message.getMessage_text().length() > 0) 
+        // unknown accounts are rejected from memory; the posted_by foreign key remains the final guard
+        if(isValid(message) && accountService.accountExists(message.getPosted_by())) 
         {
-            // throws RuntimeException on insert if posted_by does not exist as an account_id in account tbl.
-            // TODO should this explicitly check if the posted_by account exists?  currently it works as is.
-            Message newMessage = messageRepository.save(message);
+            if(messageIngestQueue != null) {
+                return messageIngestQueue.submit(message);
+            }
+            // always insert: a client supplied message_id would turn save into a select and a merge
+            message.setMessage_id(null);
+            Message newMessage = transactionTemplate.execute(status -> {
+                Message saved = messageRepository.save(message);
+                accountStatsRepository.addMessage(saved);
+                return saved;
+            });
+            messageCache.put(newMessage);
             return newMessage;
         }
         else { 
@@ -48,65 +104,247 @@ public class MessageService {
         }
     }
 
+    /**
+     * Process the creation of a batch of new messages, such as a client's queue of offline posts.
+     * 
+     * Each message is validated with the same rules as postMessage, and an invalid message does not fail the 
+     * rest of the batch. The valid messages are inserted in one transaction using JDBC batching, together with 
+     * one AccountStats update per account. If the batch insert is still rejected by the database, the messages 
+     * are retried one at a time so only the offending ones fail.
+     * 
+     * @param messages The messages to insert into the database, no message_ids
+     * @return List<BatchItemResult> one result per message, in request order, with the message_id or the error
+     * @throws InvalidInputException if the batch is null or has more than MAX_BATCH_SIZE messages
+     */
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public List<BatchItemResult> postMessages(List<Message> messages) throws InvalidInputException {
+        if(messages == null || messages.size() > MAX_BATCH_SIZE) {
+            throw new InvalidInputException();
+        }
+
+        BatchItemResult[] results = new BatchItemResult[messages.size()];
+        List<Message> valid = new ArrayList<>(messages.size());
+        for(int i = 0; i < messages.size(); i++) {
+            Message message = messages.get(i);
+            if(!isValid(message)) {
+                results[i] = BatchItemResult.rejected(BatchItemResult.INVALID_MESSAGE);
+            }
+            else if(!accountService.accountExists(message.getPosted_by())) {
+                results[i] = BatchItemResult.rejected(BatchItemResult.UNKNOWN_ACCOUNT);
+            }
+            else {
+                // always insert, never merge into an existing message
+                message.setMessage_id(null);
+                message.setVersion(null);
+                valid.add(message);
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                messageRepository.saveAll(valid);
+                accountStatsRepository.addMessages(valid);
+            });
+        }
+        catch(DataIntegrityViolationException e) {
+            for(Message message : valid) {
+                // the failed batch left an id and a version on the message, and with either of them set save() 
+                // would merge a copy instead of inserting this message
+                message.setMessage_id(null);
+                message.setVersion(null);
+                try {
+                    Message saved = transactionTemplate.execute(status -> {
+                        Message inserted = messageRepository.save(message);
+                        accountStatsRepository.addMessage(inserted);
+                        return inserted;
+                    });
+                    message.setMessage_id(saved.getMessage_id());
+                    message.setVersion(saved.getVersion());
+                }
+                catch(DataIntegrityViolationException rejected) {
+                    message.setMessage_id(null);
+                }
+            }
+        }
+
+        for(int i = 0; i < messages.size(); i++) {
+            if(results[i] == null) {
+                Message message = messages.get(i);
+                if(message.getMessage_id() != null) {
+                    messageCache.put(message);
+                    results[i] = BatchItemResult.saved(message.getMessage_id());
+                }
+                else {
+                    results[i] = BatchItemResult.rejected(BatchItemResult.NOT_SAVED);
+                }
+            }
+        }
+        return List.of(results);
+    }
+
+    /**
+     * @return boolean true if the message_text is not blank and not over 255 characters, and posted_by is set.
+     */
+    private static boolean isValid(Message message) {
+        return message != null && message.getMessage_text() != null && message.getPosted_by() != null
+            && message.getMessage_text().length() <= 255 && message.getMessage_text().length() > 0;
+    }
+
     /**
      * ## 4: Our API should be able to retrieve all messages.
      * 
-     * @return List<Messages> a list containing all messages retrieved from the database. 
-     *                        It is expected for the list to simply be empty if there are no messages. 
+     * Messages are returned one page at a time in message_id order using keyset pagination. The page is read as 
+     * unmanaged Messages in a read-only transaction, so Hibernate neither tracks nor flushes them.
+     * 
+     * @param after opaque cursor from a previous page, null for the first page
+     * @param limit maximum number of messages on the page, null for DEFAULT_PAGE_SIZE. Capped at MAX_PAGE_SIZE.
+     * @return MessagePage the messages on the page and the cursor of the next page (null if this is the last page).
+     *                     It is expected for the list to simply be empty if there are no messages. 
+     * @throws InvalidInputException if the cursor is malformed or the limit is less than 1
      */
-    public List<Message> getMesssages() {
-        return messageRepository.findAll();
+    @Transactional(readOnly = true)
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public MessagePage getMesssages(String after, Integer limit) throws InvalidInputException {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        if(pageSize < 1) {
+            throw new InvalidInputException();
+        }
+        int position = after == null ? Integer.MIN_VALUE : MessagePage.decodeCursor(after);
+
+        // read one extra row to find out whether there is a next page without a count query
+        List<Message> messages = messageRepository.findMessagesAfter(position, PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+        if(messages.size() > pageSize) {
+            messages = messages.subList(0, pageSize);
+            nextCursor = MessagePage.encodeCursor(messages.get(pageSize - 1).getMessage_id());
+        }
+        return new MessagePage(messages, nextCursor);
+    }
+
+    /**
+     * Export every message, in message_id order, for bulk consumers.
+     * 
+     * Messages are read through a database cursor and handed to the sink one at a time. The persistence context
+     * is cleared every EXPORT_BATCH_SIZE messages, so memory use does not grow with the size of the table.
+     * The sink must not keep references to the messages it is given.
+     * 
+     * @param sink receives each message in turn
+     * @return long the number of messages exported
+     */
+    @Transactional(readOnly = true)
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public long exportMessages(Consumer<Message> sink) {
+        long count = 0;
+        try(Stream<Message> messages = messageRepository.streamAllMessages()) {
+            Iterator<Message> iterator = messages.iterator();
+            while(iterator.hasNext()) {
+                sink.accept(iterator.next());
+                if(++count % EXPORT_BATCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        return count;
     }
 
     /**
      * ## 5: Our API should be able to retrieve a message by its ID.
      * 
+     * Reads go through the MessageCache; every write in this service refreshes or invalidates the cached copy 
+     * before it returns, so a read never sees a message older than the last completed write.
+     * 
      * @param message_id message identifier
-     * @return Message The identified message retrieved from the database.  Null if does not exist.
+     * @return Message The identified message retrieved from the cache or the database.  Null if does not exist.
+     *                 The returned message is shared and must not be modified.
      */
+    @Timed(MetricsConfig.SERVICE_TIMER)
     public Message getMessage(int message_id) {
-          Optional<Message> messageO = messageRepository.findById(message_id);
-        if(messageO.isPresent()) {
-            return messageO.get();
-        }
-        else {
-            return null;
-        }
+        return messageCache.get(message_id, id -> {
+            Optional<Message> messageO = messageRepository.findById(id);
+            if(messageO.isPresent()) {
+                return messageO.get();
+            }
+            else {
+                return null;
+            }
+        });
     }
 
 
     /**
      * ## 6: Our API should be able to delete a message identified by a message ID.
      * 
+     * The delete is a single conditional statement, so concurrent deletes of the same message report 1 exactly once,
+     * and only that one adjusts the AccountStats of the account that posted it, in the same transaction. The poster 
+     * is read first in that transaction; a message that does not exist costs only that read.
+     * 
      * @param message_id message identifier
      * @return Integer number of rows updated (if message deleted (1) or (0) if no record existed)
      */
+    @Timed(MetricsConfig.SERVICE_TIMER)
     public Integer deleteMessage(Integer message_id) {
-        if(messageRepository.existsById(message_id)) {
-            messageRepository.deleteById(message_id);
-            return 1;
-        }
-        return 0;
+        int rows = transactionTemplate.execute(status -> {
+            // every message has a posted_by, so no posted_by means no message and nothing to delete
+            Optional<Integer> posted_by = messageRepository.findPostedById(message_id);
+            if(posted_by.isEmpty()) {
+                return 0;
+            }
+            int deleted = messageRepository.deleteMessageById(message_id);
+            if(deleted > 0) {
+                accountStatsRepository.removeMessages(posted_by.get(), deleted);
+            }
+            return deleted;
+        });
+        messageCache.invalidate(message_id);
+        return rows;
     }
 
     /**
      * ## 7: Our API should be able to update a message text identified by a message ID.
      * 
      * The update of a message should be successful if and only if the message id already exists and the 
-     * new message_text is not blank and is not over 255 characters. 
+     * new message_text is not blank and is not over 255 characters. The existence check and the update are 
+     * the same conditional statement, which also increments the message's version. The text is not part of the
+     * AccountStats summary, so it is left alone.
      * 
      * @param message_id
      * @param message_text
-     * @return Integer the number of rows updated (0 or 1)
-     * @throws InvalidInputException if the message_id does not exist or the message_text does not
-     *         meed requirements.
+     * @return Integer the number of rows updated (1, or 0 if the message_id does not exist)
+     * @throws InvalidInputException if the message_text does not meet requirements.
      */
+    @Timed(MetricsConfig.SERVICE_TIMER)
     public Integer updateMessage(Integer message_id, String message_text) throws InvalidInputException {
-        Message message = messageRepository.getById(message_id);
-        if(message != null && message_text != null && message_text.length() <= 255 && message_text.length() > 0) {
-            message.setMessage_text(message_text);
-            messageRepository.save(message);
-            return Integer.valueOf(1);
+        return updateMessage(message_id, message_text, null);
+    }
+
+    /**
+     * Update a message text only if the message is still at the version the client read, as a compare-and-set.
+     * Concurrent updates based on the same version cannot both succeed, so none is lost, and no database lock 
+     * is held while the client edits: the loser reads the current version and retries.
+     * 
+     * @param message_id
+     * @param message_text
+     * @param version the version the update is based on, null to update whatever the current version is
+     * @return Integer the number of rows updated (1, or 0 if the message_id does not exist)
+     * @throws InvalidInputException if the message_text does not meet requirements.
+     * @throws VersionConflictException if the message exists but is no longer at the given version
+     */
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public Integer updateMessage(Integer message_id, String message_text, Integer version) 
+            throws InvalidInputException, VersionConflictException {
+        if(message_id != null && message_text != null && message_text.length() <= 255 && message_text.length() > 0) {
+            int rows = version == null 
+                ? messageRepository.updateMessageText(message_id, message_text)
+                : messageRepository.updateMessageTextIfVersion(message_id, message_text, version);
+            messageCache.invalidate(message_id);
+            if(rows == 0 && version != null) {
+                // only a failed compare-and-set pays for a second statement, to tell a conflict from a missing message
+                Optional<Integer> currentVersion = messageRepository.findVersionById(message_id);
+                if(currentVersion.isPresent()) {
+                    throw new VersionConflictException(currentVersion.get());
+                }
+            }
+            return rows;
         }
         else {
             throw new InvalidInputException();
@@ -116,11 +354,67 @@ public class MessageService {
     /**
      * ## 8: Our API should be able to retrieve all messages written by a particular user.
      * 
+     * Messages are returned newest first (by time_posted_epoch, then message_id), one page at a time, using 
+     * keyset pagination on the (posted_by, time_posted_epoch desc, message_id) index. Messages without a 
+     * time_posted_epoch come last. The page is read as unmanaged Messages in a read-only transaction.
+     * 
+     * @param account_id unique identifier for accounts
+     * @param after opaque cursor from a previous page, null for the first page
+     * @param limit maximum number of messages on the page, null for DEFAULT_PAGE_SIZE. Capped at MAX_PAGE_SIZE.
+     * @return MessagePage a page of messages posted by the identified account, empty if none exist.
+     * @throws InvalidInputException if the cursor is malformed or the limit is less than 1
+     */
+    @Transactional(readOnly = true)
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public MessagePage getAccountMessages(int account_id, String after, Integer limit) throws InvalidInputException {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+        if(pageSize < 1) {
+            throw new InvalidInputException();
+        }
+
+        // read one extra row to find out whether there is a next page without a count query
+        List<Message> messages;
+        if(after == null) {
+            messages = messageRepository.findAllMessagesByPostedBy(account_id, PageRequest.of(0, pageSize + 1));
+        }
+        else {
+            Message position = MessagePage.decodeTimelineCursor(after);
+            if(position.getTime_posted_epoch() != null) {
+                messages = messageRepository.findMessagesByPostedByAfter(account_id, position.getTime_posted_epoch(), 
+                    position.getMessage_id(), PageRequest.of(0, pageSize + 1));
+                if(messages.size() <= pageSize) {
+                    // the timed messages ran out, continue with the untimed tail of the timeline
+                    messages = new ArrayList<>(messages);
+                    messages.addAll(messageRepository.findUntimedMessagesByPostedByAfter(account_id, Integer.MIN_VALUE, 
+                        PageRequest.of(0, pageSize + 1 - messages.size())));
+                }
+            }
+            else {
+                messages = messageRepository.findUntimedMessagesByPostedByAfter(account_id, position.getMessage_id(), 
+                    PageRequest.of(0, pageSize + 1));
+            }
+        }
+
+        String nextCursor = null;
+        if(messages.size() > pageSize) {
+            messages = messages.subList(0, pageSize);
+            nextCursor = MessagePage.encodeTimelineCursor(messages.get(pageSize - 1));
+        }
+        return new MessagePage(messages, nextCursor);
+    }
+
+    /**
+     * ## 9: Our API should be able to retrieve the message summary of a particular user.
+     * 
+     * The summary is maintained with every message insert and delete, so this is a single primary key lookup, 
+     * however many messages the account has.
+     * 
      * @param account_id unique identifier for accounts
-     * @return List<Messages> all messages posted by the identified account, empty if none exist.
+     * @return AccountStats the number of messages the account has and its latest message. Null if the account 
+     *                      does not exist.
      */
-    public List<Message> getAccountMessages(int account_id) {
-        List<Message> messages = messageRepository.findAllMessagesByPostedBy(account_id);
-        return messages;
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public AccountStats getAccountStats(int account_id) {
+        return accountStatsRepository.findById(account_id).orElse(null);
     }
 }
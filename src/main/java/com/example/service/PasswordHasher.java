@@ -0,0 +1,212 @@
+package com.example.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.exception.ServiceUnavailableException;
+
+/**
+ * Hashes and verifies passwords with PBKDF2-HMAC-SHA256.
+ *
+ * Hashing is deliberately slow, so hash and verify run on a dedicated, bounded pool instead of the request thread. 
+ * When every hashing thread is busy and the queue is full, or a task waits longer than the timeout, the caller gets 
+ * a ServiceUnavailableException right away, so a login storm cannot tie up all the request threads.
+ *
+ * Encoded hashes have the form pbkdf2-sha256$iterations$salt$hash (Base64), so the cost factor can be raised 
+ * without invalidating existing hashes.
+ */
+@Component
+public class PasswordHasher {
+
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final SecureRandom random = new SecureRandom();
+    private final int iterations;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+    private final String dummyHash;
+
+    /**
+     * @param iterations PBKDF2 iteration count (cost factor) for new hashes
+     * @param threads number of threads hashing concurrently
+     * @param queueCapacity number of hash or verify tasks that may wait for a thread
+     * @param timeout longest a caller waits for its task, including time in the queue
+     */
+    @Autowired
+    public PasswordHasher(@Value("${app.password.iterations:310000}") int iterations,
+                          @Value("${app.password.threads:0}") int threads,
+                          @Value("${app.password.queue-capacity:64}") int queueCapacity,
+                          @Value("${app.password.timeout:5s}") Duration timeout) {
+        this.iterations = iterations;
+        this.timeoutMillis = timeout.toMillis();
+        this.dummyHash = randomHash();
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            task -> {
+                Thread thread = new Thread(task, "password-hasher-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Hash a new password on the hashing pool.
+     * 
+     * @param password the plaintext password
+     * @return String the encoded hash
+     * @throws ServiceUnavailableException if the hashing pool is overloaded
+     */
+    public String hash(String password) throws ServiceUnavailableException {
+        return submit(() -> encode(password));
+    }
+
+    /**
+     * Verify a password against an encoded hash on the hashing pool.
+     * 
+     * @param password the plaintext password
+     * @param encoded the encoded hash created by hash
+     * @return boolean true if the password matches
+     * @throws ServiceUnavailableException if the hashing pool is overloaded
+     */
+    public boolean verify(String password, String encoded) throws ServiceUnavailableException {
+        return submit(() -> matches(password, encoded));
+    }
+
+    /**
+     * Verify a password for an account that does not exist, on the hashing pool. It costs the same as verify for an 
+     * account hashed with the current iterations, so the response time does not reveal whether a username exists.
+     * 
+     * @param password the plaintext password
+     * @return boolean always false
+     * @throws ServiceUnavailableException if the hashing pool is overloaded
+     */
+    public boolean verifyUnknown(String password) throws ServiceUnavailableException {
+        submit(() -> matches(password, dummyHash));
+        return false;
+    }
+
+    /**
+     * Hash a password on the calling thread.
+     * 
+     * @param password the plaintext password
+     * @return String the encoded hash
+     */
+    public String encode(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterations);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(hash);
+    }
+
+    /**
+     * Verify a password against an encoded hash on the calling thread, in constant time.
+     * 
+     * @param password the plaintext password
+     * @param encoded the encoded hash
+     * @return boolean true if the password matches, false if it does not or the hash is not recognized
+     */
+    public boolean matches(String password, String encoded) {
+        if(password == null || encoded == null) {
+            return false;
+        }
+        String[] parts = encoded.split("\\$");
+        if(parts.length != 4 || !PREFIX.equals(parts[0])) {
+            return false;
+        }
+        try {
+            int hashIterations = Integer.parseInt(parts[1]);
+            Base64.Decoder base64 = Base64.getDecoder();
+            byte[] salt = base64.decode(parts[2]);
+            byte[] expected = base64.decode(parts[3]);
+            byte[] actual = pbkdf2(password, salt, hashIterations);
+            return MessageDigest.isEqual(expected, actual);
+        }
+        catch(IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * A hash that no password matches, in practice, with the current iterations. Only its salt and iterations are 
+     * used by verifyUnknown, so it is made of random bytes instead of spending a PBKDF2 run at startup.
+     */
+    private String randomHash() {
+        byte[] salt = new byte[SALT_BYTES];
+        byte[] hash = new byte[HASH_BITS / 8];
+        random.nextBytes(salt);
+        random.nextBytes(hash);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(hash);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T submit(Callable<T> task) throws ServiceUnavailableException {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        }
+        catch(RejectedExecutionException e) {
+            throw new ServiceUnavailableException();
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        catch(TimeoutException e) {
+            future.cancel(true);
+            throw new ServiceUnavailableException();
+        }
+        catch(InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException();
+        }
+        catch(ExecutionException e) {
+            throw new IllegalStateException("password hashing failed", e.getCause());
+        }
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        }
+        catch(GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+        finally {
+            spec.clearPassword();
+        }
+    }
+}
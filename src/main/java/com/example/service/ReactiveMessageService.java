@@ -0,0 +1,136 @@
+package com.example.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Service;
+
+import com.example.config.ReactiveConfig;
+import com.example.entity.Message;
+import com.example.exception.InvalidInputException;
+import com.example.repository.ReactiveMessageRepository;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive variant of the MessageService reads, on ReactiveMessageRepository. Paging, cursors and limits
+ * behave exactly as in MessageService, so a client can switch between the two paths mid-way through a list.
+ */
+@Service
+@ConditionalOnExpression(ReactiveConfig.ENABLED)
+public class ReactiveMessageService {
+
+    private ReactiveMessageRepository reactiveMessageRepository;
+    private MessageCache messageCache;
+
+    @Autowired
+    public ReactiveMessageService(ReactiveMessageRepository reactiveMessageRepository, MessageCache messageCache) {
+        this.reactiveMessageRepository = reactiveMessageRepository;
+        this.messageCache = messageCache;
+    }
+
+    /**
+     * Read a page of all messages in message_id order. See MessageService.getMesssages.
+     *
+     * @param after opaque cursor from a previous page, null for the first page
+     * @param limit maximum number of messages on the page, null for DEFAULT_PAGE_SIZE. Capped at MAX_PAGE_SIZE.
+     * @return Mono<MessagePage> the page, or an InvalidInputException error if the cursor or limit is not valid
+     */
+    public Mono<MessagePage> getMesssages(String after, Integer limit) {
+        try {
+            int pageSize = pageSize(limit);
+            int position = after == null ? Integer.MIN_VALUE : MessagePage.decodeCursor(after);
+            return reactiveMessageRepository.findMessagesAfter(position, pageSize + 1)
+                .collectList()
+                .map(messages -> page(messages, pageSize, false));
+        }
+        catch(InvalidInputException e) {
+            return Mono.error(e);
+        }
+    }
+
+    /**
+     * Stream every message in message_id order. The database is read only as fast as the subscriber requests
+     * messages, so a slow client holds back the query instead of filling memory.
+     *
+     * @return Flux<Message> all messages
+     */
+    public Flux<Message> exportMessages() {
+        return reactiveMessageRepository.streamAllMessages();
+    }
+
+    /**
+     * Read a message by its ID, from the MessageCache when it is there. See MessageService.getMessage.
+     *
+     * @param message_id message identifier
+     * @return Mono<Message> the message, empty if it does not exist
+     */
+    public Mono<Message> getMessage(int message_id) {
+        Message cached = messageCache.getIfPresent(message_id);
+        if(cached != null) {
+            return Mono.just(cached);
+        }
+        return reactiveMessageRepository.findById(message_id);
+    }
+
+    /**
+     * Read a page of the messages posted by an account, newest first. See MessageService.getAccountMessages.
+     *
+     * @param account_id unique identifier for accounts
+     * @param after opaque cursor from a previous page, null for the first page
+     * @param limit maximum number of messages on the page, null for DEFAULT_PAGE_SIZE. Capped at MAX_PAGE_SIZE.
+     * @return Mono<MessagePage> the page, or an InvalidInputException error if the cursor or limit is not valid
+     */
+    public Mono<MessagePage> getAccountMessages(int account_id, String after, Integer limit) {
+        try {
+            int pageSize = pageSize(limit);
+            Flux<Message> messages;
+            if(after == null) {
+                messages = reactiveMessageRepository.findAllMessagesByPostedBy(account_id, pageSize + 1);
+            }
+            else {
+                Message position = MessagePage.decodeTimelineCursor(after);
+                if(position.getTime_posted_epoch() != null) {
+                    // when the timed messages run out, continue with the untimed tail of the timeline
+                    messages = reactiveMessageRepository.findMessagesByPostedByAfter(account_id,
+                            position.getTime_posted_epoch(), position.getMessage_id(), pageSize + 1)
+                        .concatWith(reactiveMessageRepository.findUntimedMessagesByPostedByAfter(account_id,
+                            Integer.MIN_VALUE, pageSize + 1))
+                        .take(pageSize + 1);
+                }
+                else {
+                    messages = reactiveMessageRepository.findUntimedMessagesByPostedByAfter(account_id,
+                        position.getMessage_id(), pageSize + 1);
+                }
+            }
+            return messages.collectList().map(page -> page(page, pageSize, true));
+        }
+        catch(InvalidInputException e) {
+            return Mono.error(e);
+        }
+    }
+
+    private static int pageSize(Integer limit) throws InvalidInputException {
+        int pageSize = limit == null ? MessageService.DEFAULT_PAGE_SIZE : Math.min(limit, MessageService.MAX_PAGE_SIZE);
+        if(pageSize < 1) {
+            throw new InvalidInputException();
+        }
+        return pageSize;
+    }
+
+    /**
+     * @return MessagePage the first pageSize messages, with a next cursor if one more message was read
+     */
+    private static MessagePage page(List<Message> messages, int pageSize, boolean timeline) {
+        if(messages.size() <= pageSize) {
+            return new MessagePage(messages, null);
+        }
+        List<Message> page = new ArrayList<>(messages.subList(0, pageSize));
+        Message last = page.get(pageSize - 1);
+        String nextCursor = timeline ? MessagePage.encodeTimelineCursor(last) : MessagePage.encodeCursor(last.getMessage_id());
+        return new MessagePage(page, nextCursor);
+    }
+}
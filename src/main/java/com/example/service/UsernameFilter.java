@@ -0,0 +1,85 @@
+package com.example.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over usernames: a compact, thread safe set that can answer "definitely not registered" without 
+ * the database. A positive answer may be wrong with roughly the configured false positive rate, so it only means 
+ * the username has to be looked up.
+ *
+ * Adding more usernames than expected raises the false positive rate but never causes a false negative.
+ */
+public class UsernameFilter {
+
+    private final AtomicLongArray bits;
+    private final long numBits;
+    private final int numHashes;
+
+    /**
+     * @param expectedUsernames number of usernames the filter is sized for
+     * @param falsePositiveRate acceptable rate of "maybe" answers for unregistered usernames, between 0 and 1
+     */
+    public UsernameFilter(long expectedUsernames, double falsePositiveRate) {
+        long expected = Math.max(1, expectedUsernames);
+        long optimalBits = (long) Math.ceil(-expected * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) Math.max(1, (optimalBits + 63) / 64));
+        this.numBits = bits.length() * 64L;
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expected * Math.log(2)));
+    }
+
+    /**
+     * @param username a username that is, or is about to be, registered
+     */
+    public void add(String username) {
+        long hash1 = hash(username);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for(int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, numBits);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = bits.get(index);
+            while((word & mask) == 0 && !bits.compareAndSet(index, word, word | mask)) {
+                word = bits.get(index);
+            }
+        }
+    }
+
+    /**
+     * @param username a username, may be null
+     * @return boolean false if the username was never added, true if it may have been
+     */
+    public boolean mightContain(String username) {
+        if(username == null) {
+            return false;
+        }
+        long hash1 = hash(username);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L);
+        for(int i = 0; i < numHashes; i++) {
+            long bit = Long.remainderUnsigned(hash1 + i * hash2, numBits);
+            if((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** 64-bit FNV-1a over the characters of the username, finished with a bit mixer. */
+    private static long hash(String username) {
+        long hash = 0xCBF29CE484222325L;
+        for(int i = 0; i < username.length(); i++) {
+            hash ^= username.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /** The MurmurHash3 64-bit finalizer. */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
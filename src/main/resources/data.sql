@@ -1,25 +1,53 @@
+drop table if exists account_stats;
 drop table if exists message;
 drop table if exists account;
+drop sequence if exists message_seq;
+drop sequence if exists account_seq;
+-- ids are allocated by Hibernate in blocks of 50 (pooled-lo): each nextval is the first id of a block.
+-- Both start above the ids of the test values below, so generated ids never collide with them.
+create sequence account_seq start with 10000 increment by 50;
+create sequence message_seq start with 10000 increment by 50;
 create table account (
-    account_id int primary key auto_increment,
-    username varchar(255) not null unique,
+    account_id int primary key,
+    username varchar(255) not null,
     password varchar(255)
 );
+-- named so that registration can tell a duplicate username from any other violation. A unique index rather than
+-- a constraint, because H2 reports the name of the index, which for a constraint is generated
+create unique index account_username_uk on account (username);
 create table message (
-    message_id int primary key auto_increment,
+    message_id int primary key,
     posted_by int,
     message_text varchar(255),
     time_posted_epoch bigint,
+    -- optimistic locking version, incremented by every update of the message
+    version int default 0 not null,
     foreign key (posted_by) references  account(account_id)
 );
+-- serves the account timeline, newest first, with keyset pagination
+create index message_posted_by_time_idx on message (posted_by, time_posted_epoch desc, message_id);
+-- per-account message summary, created with the account and updated in the transaction of every message 
+-- insert and delete
+create table account_stats (
+    account_id int primary key,
+    message_count int not null,
+    latest_message_id int,
+    latest_time_posted_epoch bigint,
+    foreign key (account_id) references account(account_id)
+);
 
--- Starting test values with ids of 9999 to avoid test issues
-insert into account values (9999, 'testuser1', 'password');
-insert into account values (9998, 'testuser2', 'password');
-insert into account values (9997, 'testuser3', 'password');
-insert into account values (9996, 'testuser4', 'password');
+-- Starting test values with ids of 9999 to avoid test issues. Generated ids start at 10000.
+-- Every test account's password is 'password', stored as a PBKDF2 hash (see PasswordHasher).
+insert into account values (9999, 'testuser1', 'pbkdf2-sha256$310000$iDDA07txN3deh/rfi3/Lig$b60NhCCeA78kQDgl3E7ZACZ79A8ovluLXVo0xf+bytE');
+insert into account values (9998, 'testuser2', 'pbkdf2-sha256$310000$5+5q2QbNnA4/zLFuhYdgMw$1J1BMo21p+ryFBPnSRDxKzfcN4OYEU1wQV8HhYX5axk');
+insert into account values (9997, 'testuser3', 'pbkdf2-sha256$310000$5CYBF4nUUZHw6uVuMhyz7Q$c/ZVL+763WcNcnnhI1Vs/x4hpTBTezwgzwiDq1WynQs');
+insert into account values (9996, 'testuser4', 'pbkdf2-sha256$310000$g4dwyIKMd/bPcO+z/jfCWg$6aClh/VlqODENri2jCHuasMtiiRcEiDq9/jDGrqSRWc');
 
-insert into message values (9999, 9999,'test message 1',1669947792);
-insert into message values (9997, 9997,'test message 2',1669947792);
-insert into message values (9996, 9996,'test message 3',1669947792);
+insert into message values (9999, 9999,'test message 1',1669947792, 0);
+insert into message values (9997, 9997,'test message 2',1669947792, 0);
+insert into message values (9996, 9996,'test message 3',1669947792, 0);
 
+insert into account_stats values (9999, 1, 9999, 1669947792);
+insert into account_stats values (9998, 0, null, null);
+insert into account_stats values (9997, 1, 9997, 1669947792);
+insert into account_stats values (9996, 1, 9996, 1669947792);
@@ -0,0 +1,152 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Account;
+import com.example.entity.AccountStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class AccountStatsTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/accounts/9999/stats
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: JSON represenation of the summary of account 9999, with its one message 9999
+     */
+    @Test
+    public void getAccountStatsFixture() throws IOException, InterruptedException {
+        AccountStats expectedResult = new AccountStats(9999, 1, 9999, 1669947792L);
+        Assertions.assertEquals(expectedResult, getStats(9999));
+        Assertions.assertEquals(new AccountStats(9998, 0, null, null), getStats(9998));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/accounts/5050/stats (account 5050 does not exist)
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: empty
+     */
+    @Test
+    public void getAccountStatsAccountNotFound() throws IOException, InterruptedException {
+        HttpResponse<String> response = webClient.send(request("GET", "/accounts/5050/stats", null),
+            HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        Assertions.assertTrue(response.body().isEmpty(), "Expected Empty Result, but Result was not Empty");
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/register, then GET localhost:8080/accounts/{account_id}/stats
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: a summary with no messages for the new account
+     */
+    @Test
+    public void registeredAccountHasEmptyStats() throws IOException, InterruptedException {
+        HttpResponse<String> response = webClient.send(request("POST", "/register",
+            "{\"username\":\"statsuser\",\"password\":\"password\"}"), HttpResponse.BodyHandlers.ofString());
+        Account account = objectMapper.readValue(response.body(), Account.class);
+        AccountStats expectedResult = new AccountStats(account.getAccount_id(), 0, null, null);
+        Assertions.assertEquals(expectedResult, getStats(account.getAccount_id()));
+    }
+
+    /**
+     * Sending http requests to POST localhost:8080/messages, POST localhost:8080/messages/batch and
+     * DELETE localhost:8080/messages/{message_id}, reading GET localhost:8080/accounts/9999/stats after each
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the message count follows every insert and delete, and the latest message is the one with
+     *  the greatest time_posted_epoch that has not been deleted. A message without a time_posted_epoch is never 
+     *  the latest of an account with timed messages
+     */
+    @Test
+    public void statsFollowPostsAndDeletes() throws IOException, InterruptedException {
+        HttpResponse<String> posted = webClient.send(request("POST", "/messages",
+            "{\"posted_by\":9999,\"message_text\": \"newest\",\"time_posted_epoch\": 1669947900}"),
+            HttpResponse.BodyHandlers.ofString());
+        int newest = objectMapper.readTree(posted.body()).get("message_id").asInt();
+        Assertions.assertEquals(new AccountStats(9999, 2, newest, 1669947900L), getStats(9999));
+
+        webClient.send(request("POST", "/messages/batch",
+            "[{\"posted_by\":9999,\"message_text\": \"older\",\"time_posted_epoch\": 1669947800},"
+            + "{\"posted_by\":9998,\"message_text\": \"first\",\"time_posted_epoch\": 1669947800},"
+            + "{\"posted_by\":9998,\"message_text\": \"second\",\"time_posted_epoch\": 1669947850}]"),
+            HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(new AccountStats(9999, 3, newest, 1669947900L), getStats(9999));
+        AccountStats batchAccount = getStats(9998);
+        Assertions.assertEquals(2, batchAccount.getMessage_count());
+        Assertions.assertEquals(1669947850L, batchAccount.getLatest_time_posted_epoch());
+
+        webClient.send(request("POST", "/messages", "{\"posted_by\":9999,\"message_text\": \"untimed\"}"),
+            HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(new AccountStats(9999, 4, newest, 1669947900L), getStats(9999));
+
+        webClient.send(request("DELETE", "/messages/" + newest, null), HttpResponse.BodyHandlers.ofString());
+        AccountStats afterDelete = getStats(9999);
+        Assertions.assertEquals(3, afterDelete.getMessage_count());
+        Assertions.assertEquals(1669947800L, afterDelete.getLatest_time_posted_epoch());
+
+        webClient.send(request("DELETE", "/messages/" + newest, null), HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(afterDelete, getStats(9999));
+    }
+
+    private AccountStats getStats(int account_id) throws IOException, InterruptedException {
+        HttpResponse<String> response = webClient.send(request("GET", "/accounts/" + account_id + "/stats", null),
+            HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        return objectMapper.readValue(response.body(), AccountStats.class);
+    }
+
+    private HttpRequest request(String method, String path, String json) {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path));
+        if(json == null) {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        else {
+            request.method(method, HttpRequest.BodyPublishers.ofString(json))
+                    .header("Content-Type", "application/json");
+        }
+        return request.build();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+public class CompressionTest {
+	ApplicationContext app;
+    HttpClient webClient;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient for interacting
+     * locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/9999 with the header Accept-Encoding: gzip
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: not compressed, the message is below server.compression.min-response-size
+     *  Content-Length: the length of the body
+     */
+    @Test
+    public void smallResponseNotCompressed() throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = get("/messages/9999", "gzip");
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        Assertions.assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+        Assertions.assertEquals(String.valueOf(response.body().length),
+            response.headers().firstValue("Content-Length").orElse(null));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages with the header Accept-Encoding: gzip, after posting
+     * enough messages to make the page larger than server.compression.min-response-size
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Content-Encoding: gzip
+     *  Response Body: smaller than, and once decompressed the same as, the response without Accept-Encoding
+     */
+    @Test
+    public void largePageCompressed() throws IOException, InterruptedException {
+        StringBuilder json = new StringBuilder("[");
+        for(int i = 0; i < 50; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"posted_by\":9999,\"message_text\": \"compressible message ")
+                .append(i).append("\",\"time_posted_epoch\": ").append(1669947793 + i).append("}");
+        }
+        json.append("]");
+        HttpRequest postMessagesRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(json.toString()))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(postMessagesRequest, HttpResponse.BodyHandlers.discarding());
+
+        HttpResponse<byte[]> identity = get("/messages", "identity");
+        HttpResponse<byte[]> response = get("/messages", "gzip");
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        Assertions.assertTrue(identity.headers().firstValue("Content-Encoding").isEmpty());
+        Assertions.assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null));
+        Assertions.assertTrue(response.body().length < identity.body().length, "Expected gzip body smaller than "
+            + identity.body().length + " bytes - Actual was: " + response.body().length);
+        String expected = new String(identity.body(), StandardCharsets.UTF_8);
+        String actual = new String(new GZIPInputStream(new ByteArrayInputStream(response.body())).readAllBytes(),
+            StandardCharsets.UTF_8);
+        Assertions.assertEquals(expected, actual);
+    }
+
+    private HttpResponse<byte[]> get(String path, String acceptEncoding) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .header("Accept-Encoding", acceptEncoding)
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+public class ConditionalGetTest {
+	ApplicationContext app;
+    HttpClient webClient;
+
+    /**
+     * Before every test, reset the database, restart the app in SQL statement diagnostic mode, and create a new
+     * webClient for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        String[] args = new String[] { "--app.diagnostics.sql-statements=true" };
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/9999, then again with its ETag in If-None-Match,
+     * then again after the message was updated
+     *
+     * Expected Response:
+     *  Status Code: 200 with a strong ETag, then 304 with the same ETag, an empty body and no SQL statements,
+     *               then 200 with a different ETag
+     */
+    @Test
+    public void getMessageNotModified() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("/messages/9999", null);
+        Assertions.assertEquals(200, response.statusCode());
+        String eTag = response.headers().firstValue("ETag").orElse(null);
+        Assertions.assertNotNull(eTag, "Expected an ETag header");
+        Assertions.assertFalse(eTag.startsWith("W/"), "Expected a strong ETag - Actual was: " + eTag);
+
+        response = get("/messages/9999", eTag);
+        int status = response.statusCode();
+        Assertions.assertEquals(304, status, "Expected Status Code 304 - Actual Code was: " + status);
+        Assertions.assertEquals("", response.body());
+        Assertions.assertEquals(eTag, response.headers().firstValue("ETag").orElse(null));
+        Assertions.assertEquals("0", response.headers().firstValue("X-SQL-Statement-Count").orElse(null));
+
+        HttpRequest patchMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"message_text\": \"updated message\"}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(patchMessageRequest, HttpResponse.BodyHandlers.ofString());
+
+        response = get("/messages/9999", eTag);
+        status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        Assertions.assertNotEquals(eTag, response.headers().firstValue("ETag").orElse(null));
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/accounts/9999/messages, then again with its ETag in
+     * If-None-Match, then again after the account posted a message
+     *
+     * Expected Response:
+     *  Status Code: 200 with a weak ETag, then 304 with an empty body, then 200 with a different ETag
+     */
+    @Test
+    public void getAccountMessagesNotModified() throws IOException, InterruptedException {
+        HttpResponse<String> response = get("/accounts/9999/messages", null);
+        Assertions.assertEquals(200, response.statusCode());
+        String eTag = response.headers().firstValue("ETag").orElse(null);
+        Assertions.assertNotNull(eTag, "Expected an ETag header");
+        Assertions.assertTrue(eTag.startsWith("W/"), "Expected a weak ETag - Actual was: " + eTag);
+
+        response = get("/accounts/9999/messages", eTag);
+        int status = response.statusCode();
+        Assertions.assertEquals(304, status, "Expected Status Code 304 - Actual Code was: " + status);
+        Assertions.assertEquals("", response.body());
+
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(
+                    "{\"posted_by\":9999,\"message_text\": \"new message\",\"time_posted_epoch\": 1669947800}"))
+                .header("Content-Type", "application/json")
+                .build();
+        webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+
+        response = get("/accounts/9999/messages", eTag);
+        status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        Assertions.assertNotEquals(eTag, response.headers().firstValue("ETag").orElse(null));
+    }
+
+    private HttpResponse<String> get(String path, String ifNoneMatch) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder().uri(URI.create("http://localhost:8080" + path));
+        if(ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return webClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
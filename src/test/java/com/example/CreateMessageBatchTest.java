@@ -0,0 +1,156 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CreateMessageBatchTest {
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient and ObjectMapper
+     * for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages/batch with two valid messages, a blank message and 
+     * a message from a user that doesnt exist in db
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: a message_id for each valid message and an error for each invalid one, in request order. 
+     *  The valid messages are persisted.
+     */
+    @Test
+    public void createMessageBatchPartiallySuccessful() throws IOException, InterruptedException {
+    	String json = "["
+    			+ "{\"posted_by\":9999,\"message_text\": \"first\",\"time_posted_epoch\": 1669947793},"
+    			+ "{\"posted_by\":9999,\"message_text\": \"\",\"time_posted_epoch\": 1669947794},"
+    			+ "{\"posted_by\":5050,\"message_text\": \"unknown user\",\"time_posted_epoch\": 1669947795},"
+    			+ "{\"posted_by\":9998,\"message_text\": \"second\",\"time_posted_epoch\": 1669947796}"
+    			+ "]";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        List<JsonNode> results = objectMapper.readValue(response.body().toString(), new TypeReference<List<JsonNode>>(){});
+        Assertions.assertEquals(4, results.size(), "Expected one result per message, but was " + results);
+        Assertions.assertTrue(results.get(0).hasNonNull("message_id"), "Expected first message saved, but was " + results.get(0));
+        Assertions.assertEquals("invalid message", results.get(1).path("error").asText());
+        Assertions.assertEquals("unknown posted_by", results.get(2).path("error").asText());
+        Assertions.assertTrue(results.get(3).hasNonNull("message_id"), "Expected last message saved, but was " + results.get(3));
+
+        HttpRequest getMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/" + results.get(3).get("message_id").asInt()))
+                .build();
+        response = webClient.send(getMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Message expectedResult = new Message(results.get(3).get("message_id").asInt(), 9998, "second", 1669947796L);
+        Message actualResult = objectMapper.readValue(response.body().toString(), Message.class);
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages/batch with three valid messages, after moving 
+     * message_seq back onto the ids of the test messages, so the batch insert fails and the messages are retried 
+     * one at a time, then GET localhost:8080/messages/{message_id} and GET localhost:8080/accounts/9999/stats
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the batch gets ids 9996 and 9997, which are taken, so it is rejected. The retries get 9999, 
+     *  which is taken, 10000 and 10001: the first message is not saved, the others are reported with the 
+     *  message_id they were saved with and can be read back. The account summary counts exactly the saved ones.
+     */
+    @Test
+    public void createMessageBatchRetriedOneAtATime() throws IOException, InterruptedException {
+        app.getBean(JdbcTemplate.class).execute("alter sequence message_seq restart with 9996");
+    	String json = "["
+    			+ "{\"posted_by\":9999,\"message_text\": \"fb-a\",\"time_posted_epoch\": 1669947793},"
+    			+ "{\"posted_by\":9999,\"message_text\": \"fb-b\",\"time_posted_epoch\": 1669947794},"
+    			+ "{\"posted_by\":9999,\"message_text\": \"fb-c\",\"time_posted_epoch\": 1669947795}"
+    			+ "]";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        List<JsonNode> results = objectMapper.readValue(response.body().toString(), new TypeReference<List<JsonNode>>(){});
+        Assertions.assertEquals("not saved", results.get(0).path("error").asText(), "Expected first message not saved, but was " + results);
+        for(int i = 1; i < 3; i++) {
+            Assertions.assertTrue(results.get(i).hasNonNull("message_id"), "Expected message saved, but was " + results.get(i));
+            HttpRequest getMessageRequest = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/messages/" + results.get(i).get("message_id").asInt()))
+                    .build();
+            response = webClient.send(getMessageRequest, HttpResponse.BodyHandlers.ofString());
+            Message expectedResult = new Message(results.get(i).get("message_id").asInt(), 9999, "fb-" + (char) ('a' + i), 
+                1669947793L + i);
+            Message actualResult = objectMapper.readValue(response.body().toString(), Message.class);
+            Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+        }
+
+        HttpRequest getStatsRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9999/stats"))
+                .build();
+        response = webClient.send(getStatsRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(3, objectMapper.readTree(response.body()).get("message_count").asInt(), 
+            "Expected the test message and the two saved ones, but was " + response.body());
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages/batch with a body that is not an array
+     * 
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void createMessageBatchNotAnArray() throws IOException, InterruptedException {
+    	String json = "{\"posted_by\":9999,\"message_text\": \"hello message\",\"time_posted_epoch\": 1669947792}";
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(400, status, "Expected Status Code 400 - Actual Code was: " + status);
+    }
+}
@@ -79,4 +79,33 @@ public class DeleteMessageByMessageIdTest {
         String actualResult = response.body().toString();
         Assertions.assertTrue(actualResult.equals(""), "Expected empty response body, but actually " + actualResult + ".");
     }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/9999, then DELETE localhost:8080/messages/9999, 
+     * then GET localhost:8080/messages/9999 again (the first read caches the message)
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the second read is empty
+     */
+    @Test
+    public void deleteMessageVisibleToNextRead() throws IOException, InterruptedException {
+        HttpRequest getRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .build();
+        HttpResponse<String> response = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        Assertions.assertFalse(response.body().toString().isEmpty(), "Expected the message before it is deleted");
+
+        HttpRequest deleteRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .DELETE()
+                .build();
+        response = webClient.send(deleteRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+
+        response = webClient.send(getRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        Assertions.assertTrue(response.body().toString().isEmpty(), "Expected Empty Result, but Result was not Empty");
+    }
 }
@@ -0,0 +1,79 @@
+package com.example;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.entity.Account;
+import com.example.entity.Message;
+import com.example.json.AccountSerializer;
+import com.example.json.MessageSerializer;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+public class JsonSerializationTest {
+    ObjectMapper reflective;
+    ObjectMapper serializers;
+
+    /**
+     * Before every test, create an ObjectMapper with the default reflective serialization and one with
+     * MessageSerializer and AccountSerializer registered.
+     */
+    @BeforeEach
+    public void setUp() {
+        reflective = new ObjectMapper();
+        serializers = new ObjectMapper().registerModule(new SimpleModule()
+            .addSerializer(Message.class, new MessageSerializer())
+            .addSerializer(Account.class, new AccountSerializer()));
+    }
+
+    /**
+     * Serializing messages with nulls, extreme numbers, and text that needs escaping
+     *
+     * Expected Result:
+     *  The same bytes as reflective serialization, for single messages and for a list, without the version
+     */
+    @Test
+    public void messageSerializerMatchesReflectiveSerialization() throws JsonProcessingException {
+        List<Message> messages = List.of(
+            new Message(9999, 9999, "test message 1", 1669947792L),
+            new Message(),
+            new Message(null, 1, "no id", null),
+            new Message(Integer.MAX_VALUE, Integer.MIN_VALUE, "", Long.MIN_VALUE),
+            new Message(1, 2, "quote \" backslash \\ slash / newline \n tab \t nul \u0000 </script>", Long.MAX_VALUE),
+            new Message(3, 4, "café 你好 😀  ", -1L));
+        for(Message message : messages) {
+            assertSameJson(message);
+        }
+        assertSameJson(messages);
+        Assertions.assertFalse(serializers.writeValueAsString(messages).contains("version"));
+    }
+
+    /**
+     * Serializing accounts with nulls and text that needs escaping
+     *
+     * Expected Result:
+     *  The same bytes as reflective serialization, for single accounts and for a list
+     */
+    @Test
+    public void accountSerializerMatchesReflectiveSerialization() throws JsonProcessingException {
+        List<Account> accounts = List.of(
+            new Account(9999, "testuser1", "password"),
+            new Account(),
+            new Account("user \"name\"", "pass\\word é 😀"));
+        for(Account account : accounts) {
+            assertSameJson(account);
+        }
+        assertSameJson(accounts);
+    }
+
+    private void assertSameJson(Object value) throws JsonProcessingException {
+        String expected = reflective.writeValueAsString(value);
+        String actual = serializers.writeValueAsString(value);
+        Assertions.assertEquals(expected, actual);
+        Assertions.assertArrayEquals(reflective.writeValueAsBytes(value), serializers.writeValueAsBytes(value), expected);
+    }
+}
@@ -0,0 +1,137 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+import com.example.entity.Message;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class MessageIngestTest {
+    private static final int BATCH_SIZE = 10;
+    private static final int POSTS = 50;
+
+	ApplicationContext app;
+    HttpClient webClient;
+    ObjectMapper objectMapper;
+
+    /**
+     * Before every test, reset the database, restart the app with write-behind ingestion, and create a new
+     * webClient and ObjectMapper for interacting locally on the web. The writer holds each batch until it has
+     * BATCH_SIZE messages, so how posts are grouped does not depend on when they arrive.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        objectMapper = new ObjectMapper();
+        String[] args = new String[] { "--app.message-ingest.enabled=true",
+            "--app.message-ingest.max-batch-size=" + BATCH_SIZE, "--app.message-ingest.max-wait=30s",
+            "--app.message-ingest.ack-timeout=30s" };
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending 50 concurrent http requests to POST localhost:8080/messages, after a batch through
+     * POST localhost:8080/messages/batch, and reading each message back with GET localhost:8080/messages/{message_id}
+     *
+     * Expected Response:
+     *  Status Code: 200 for every request
+     *  Response Body: each message with a message_id not used by any other message, including the batch's
+     *  app.ingest.batch.size: 50 messages written in at most ceil(50 / BATCH_SIZE) commits
+     */
+    @Test
+    public void concurrentPostsGroupCommitted() throws IOException, InterruptedException {
+        HttpResponse<String> batchResponse = webClient.send(post("/messages/batch",
+            "[{\"posted_by\":9999,\"message_text\": \"batched\",\"time_posted_epoch\": 1669947793}]"),
+            HttpResponse.BodyHandlers.ofString());
+        Set<Integer> ids = new HashSet<>();
+        ids.add(objectMapper.readTree(batchResponse.body()).get(0).get("message_id").asInt());
+
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for(int i = 0; i < POSTS; i++) {
+            responses.add(webClient.sendAsync(post("/messages", "{\"posted_by\":9999,\"message_text\": \"ingested " + i
+                + "\",\"time_posted_epoch\": " + (1669947800 + i) + "}"), HttpResponse.BodyHandlers.ofString()));
+        }
+        for(int i = 0; i < responses.size(); i++) {
+            HttpResponse<String> response = responses.get(i).join();
+            int status = response.statusCode();
+            Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+            Message posted = objectMapper.readValue(response.body(), Message.class);
+            Assertions.assertTrue(ids.add(posted.getMessage_id()), "Duplicate message_id " + posted.getMessage_id());
+
+            HttpRequest getMessageRequest = HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:8080/messages/" + posted.getMessage_id()))
+                    .build();
+            HttpResponse<String> read = webClient.send(getMessageRequest, HttpResponse.BodyHandlers.ofString());
+            Message expectedResult = new Message(posted.getMessage_id(), 9999, "ingested " + i, 1669947800L + i);
+            Message actualResult = objectMapper.readValue(read.body(), Message.class);
+            Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+        }
+
+        HttpRequest metricRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/actuator/metrics/app.ingest.batch.size"))
+                .build();
+        JsonNode measurements = objectMapper.readTree(
+            webClient.send(metricRequest, HttpResponse.BodyHandlers.ofString()).body()).get("measurements");
+        double commits = 0;
+        double total = 0;
+        for(JsonNode measurement : measurements) {
+            if(measurement.get("statistic").asText().equals("COUNT")) {
+                commits = measurement.get("value").asDouble();
+            }
+            if(measurement.get("statistic").asText().equals("TOTAL")) {
+                total = measurement.get("value").asDouble();
+            }
+        }
+        int maxCommits = (POSTS + BATCH_SIZE - 1) / BATCH_SIZE;
+        Assertions.assertEquals(POSTS, total, "Expected " + POSTS + " messages written - Actual was: " + total);
+        Assertions.assertTrue(commits <= maxCommits, "Expected at most " + maxCommits + " commits - Actual was: " 
+            + commits);
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/messages with a message from a user that doesnt exist in db
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void invalidPostNotQueued() throws IOException, InterruptedException {
+        HttpResponse<String> response = webClient.send(post("/messages",
+            "{\"posted_by\":5050,\"message_text\": \"unknown user\",\"time_posted_epoch\": 1669947792}"),
+            HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(400, status, "Expected Status Code 400 - Actual Code was: " + status);
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+public class ReactiveMessageTest {
+	ApplicationContext app;
+    HttpClient webClient;
+
+    /**
+     * Before every test, reset the database, restart the app, and create a new webClient for interacting
+     * locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        String[] args = new String[] {};
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending http requests to each message read endpoint under localhost:8080/reactive and to the same
+     * endpoint without the prefix
+     *
+     * Expected Response:
+     *  Status Code: the same for both
+     *  Response Body: the same for both
+     *  X-Next-Cursor: the same for both
+     *  ETag: the same for both
+     */
+    @Test
+    public void reactiveReadsMatchServletReads() throws IOException, InterruptedException {
+        String[] paths = new String[] {
+            "/messages", "/messages?limit=1", "/messages?limit=1&after=AAAnDA", "/messages?after=zz",
+            "/messages/9999", "/messages/100",
+            "/accounts/9999/messages", "/accounts/9999/messages?limit=0", "/accounts/100/messages"
+        };
+        for(String path : paths) {
+            HttpResponse<String> expected = get(path, "application/json");
+            HttpResponse<String> actual = get("/reactive" + path, "application/json");
+            Assertions.assertEquals(expected.statusCode(), actual.statusCode(), path + ": Expected Status Code "
+                + expected.statusCode() + " - Actual Code was: " + actual.statusCode());
+            Assertions.assertEquals(expected.body(), actual.body(), path + ": Expected=" + expected.body()
+                + ", Actual=" + actual.body());
+            Assertions.assertEquals(expected.headers().firstValue("X-Next-Cursor"),
+                actual.headers().firstValue("X-Next-Cursor"), path);
+            Assertions.assertEquals(expected.headers().firstValue("ETag"), actual.headers().firstValue("ETag"), path);
+        }
+    }
+
+    /**
+     * Sending an http request to GET localhost:8080/reactive/messages with the header Accept: application/x-ndjson
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the same newline-delimited JSON as GET localhost:8080/messages
+     */
+    @Test
+    public void reactiveExportMatchesServletExport() throws IOException, InterruptedException {
+        HttpResponse<String> expected = get("/messages", "application/x-ndjson");
+        HttpResponse<String> actual = get("/reactive/messages", "application/x-ndjson");
+        int status = actual.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        Assertions.assertTrue(actual.headers().firstValue("Content-Type").orElse("").startsWith("application/x-ndjson"));
+        Assertions.assertEquals(expected.body(), actual.body(), "Expected=" + expected.body() + ", Actual=" + actual.body());
+    }
+
+    /**
+     * Restarting the app with app.reactive.enabled=false, then sending http requests to GET localhost:8080/messages 
+     * and GET localhost:8080/reactive/messages
+     *
+     * Expected Response:
+     *  Status Code: 200 for the servlet read, 404 for the reactive one, whose beans are not created
+     */
+    @Test
+    public void reactiveReadsDisabled() throws IOException, InterruptedException {
+        SpringApplication.exit(app);
+        app = SpringApplication.run(SocialMediaApp.class, "--app.reactive.enabled=false");
+        Thread.sleep(500);
+        int status = get("/messages", "application/json").statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        status = get("/reactive/messages", "application/json").statusCode();
+        Assertions.assertEquals(404, status, "Expected Status Code 404 - Actual Code was: " + status);
+    }
+
+    private HttpResponse<String> get(String path, String accept) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path))
+                .header("Accept", accept)
+                .build();
+        return webClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
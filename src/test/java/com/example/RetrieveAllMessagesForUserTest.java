@@ -83,4 +83,59 @@ public class RetrieveAllMessagesForUserTest {
         List<Message> actualResult = objectMapper.readValue(response.body().toString(), new TypeReference<List<Message>>(){});
         Assertions.assertTrue(actualResult.isEmpty(), "Expected Empty Result, but Result was not Empty");
     }
+
+    /**
+     * Sending http requests to GET localhost:8080/accounts/9998/messages?limit=2 and following the next page cursor,
+     * after posting messages for the user out of time order and one message without a time.
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the messages newest first, then the message without a time
+     *  X-Next-Cursor header: present on the first page only
+     */
+    @Test
+    public void getAllMessagesFromUserPaginatedNewestFirst() throws IOException, InterruptedException {
+        Message oldest = postMessage("{\"posted_by\":9998,\"message_text\": \"oldest\",\"time_posted_epoch\": 100}");
+        Message newest = postMessage("{\"posted_by\":9998,\"message_text\": \"newest\",\"time_posted_epoch\": 300}");
+        Message middle = postMessage("{\"posted_by\":9998,\"message_text\": \"middle\",\"time_posted_epoch\": 200}");
+        Message untimed = postMessage("{\"posted_by\":9998,\"message_text\": \"untimed\"}");
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9998/messages?limit=2"))
+                .build();
+        HttpResponse<String> response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        List<Message> expectedResult = new ArrayList<Message>();
+        expectedResult.add(newest);
+        expectedResult.add(middle);
+        List<Message> actualResult = objectMapper.readValue(response.body().toString(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+        String cursor = response.headers().firstValue("X-Next-Cursor").orElse(null);
+        Assertions.assertNotNull(cursor, "Expected a next page cursor");
+
+        request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/accounts/9998/messages?limit=2&after=" + cursor))
+                .build();
+        response = webClient.send(request, HttpResponse.BodyHandlers.ofString());
+        status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        expectedResult = new ArrayList<Message>();
+        expectedResult.add(oldest);
+        expectedResult.add(untimed);
+        actualResult = objectMapper.readValue(response.body().toString(), new TypeReference<List<Message>>(){});
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+        Assertions.assertTrue(response.headers().firstValue("X-Next-Cursor").isEmpty(), "Expected no next page cursor");
+    }
+
+    private Message postMessage(String json) throws IOException, InterruptedException {
+        HttpRequest postMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        return objectMapper.readValue(response.body().toString(), Message.class);
+    }
 }
@@ -0,0 +1,136 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Every endpoint has a fixed budget of SQL statements per request, read from the X-SQL-Statement-Count header of
+ * the diagnostic mode. A change that adds round trips, such as an existence check before a write or a select
+ * before an insert, fails these tests.
+ */
+public class StatementBudgetTest {
+	ApplicationContext app;
+    HttpClient webClient;
+
+    /**
+     * Before every test, reset the database, restart the app in SQL statement diagnostic mode, and create a new
+     * webClient for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        String[] args = new String[] { "--app.diagnostics.sql-statements=true" };
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending http requests to POST localhost:8080/register and POST localhost:8080/login
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  X-SQL-Statement-Count: at most 3 for a registration (the account_seq block, the insert and its empty
+     *                         account_stats row), at most 1 for a login of an uncached account and 0 for a login
+     *                         of a cached one
+     */
+    @Test
+    public void accountStatementBudget() throws IOException, InterruptedException {
+        String account = "{\"username\":\"budgetuser\",\"password\":\"password\"}";
+        assertBudget(send("POST", "/register", account), 200, 3);
+        assertBudget(send("POST", "/login", "{\"username\":\"testuser1\",\"password\":\"password\"}"), 200, 1);
+        assertBudget(send("POST", "/login", account), 200, 0);
+    }
+
+    /**
+     * Sending http requests to POST localhost:8080/messages, with and without a message_id, and
+     * POST localhost:8080/messages/batch with three messages
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  X-SQL-Statement-Count: at most 3 for the first message (the message_seq block, the insert and the
+     *                         account_stats update), 2 for the next one and at most 3 for the batch (the
+     *                         message_seq block, one JDBC batch and one account_stats update per account)
+     */
+    @Test
+    public void createMessageStatementBudget() throws IOException, InterruptedException {
+        String message = "{\"posted_by\":9999,\"message_text\":\"budget message\",\"time_posted_epoch\":1669947792}";
+        assertBudget(send("POST", "/messages", message), 200, 3);
+        String withId = "{\"message_id\":9999,\"posted_by\":9999,\"message_text\":\"budget message\",\"time_posted_epoch\":1669947792}";
+        assertBudget(send("POST", "/messages", withId), 200, 2);
+        assertBudget(send("POST", "/messages/batch", "[" + message + "," + message + "," + message + "]"), 200, 3);
+    }
+
+    /**
+     * Sending http requests to GET localhost:8080/messages, GET localhost:8080/messages/9999 twice and
+     * GET localhost:8080/accounts/9999/messages and GET localhost:8080/accounts/9999/stats
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  X-SQL-Statement-Count: 1 for each page, 1 for the first read of a message, 0 for the cached read and 1 for
+     *                         the account summary
+     */
+    @Test
+    public void readMessageStatementBudget() throws IOException, InterruptedException {
+        assertBudget(send("GET", "/messages", null), 200, 1);
+        assertBudget(send("GET", "/messages/9999", null), 200, 1);
+        assertBudget(send("GET", "/messages/9999", null), 200, 0);
+        assertBudget(send("GET", "/accounts/9999/messages", null), 200, 1);
+        assertBudget(send("GET", "/accounts/9999/stats", null), 200, 1);
+    }
+
+    /**
+     * Sending http requests to PATCH localhost:8080/messages/9999, DELETE localhost:8080/messages/9999 and
+     * DELETE localhost:8080/messages/100 (message id 100 does not exist)
+     *
+     * Expected Response:
+     *  Status Code: 200
+     *  X-SQL-Statement-Count: 1 for the conditional update, 3 for the delete of 9999 (the read of its poster, the
+     *                         delete and the account_stats update) and 1 for the delete of a missing message
+     */
+    @Test
+    public void updateDeleteMessageStatementBudget() throws IOException, InterruptedException {
+        assertBudget(send("PATCH", "/messages/9999", "{\"message_text\":\"updated message\"}"), 200, 1);
+        assertBudget(send("DELETE", "/messages/9999", null), 200, 3);
+        assertBudget(send("DELETE", "/messages/100", null), 200, 1);
+    }
+
+    private HttpResponse<String> send(String method, String path, String json) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080" + path));
+        if(json == null) {
+            request.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+        else {
+            request.method(method, HttpRequest.BodyPublishers.ofString(json))
+                    .header("Content-Type", "application/json");
+        }
+        return webClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static void assertBudget(HttpResponse<String> response, int expectedStatus, int budget) {
+        String endpoint = response.request().method() + " " + response.request().uri().getPath();
+        int status = response.statusCode();
+        Assertions.assertEquals(expectedStatus, status, endpoint + ": Expected Status Code " + expectedStatus
+            + " - Actual Code was: " + status);
+        int statements = Integer.parseInt(response.headers().firstValue("X-SQL-Statement-Count").orElseThrow());
+        Assertions.assertTrue(statements <= budget, endpoint + ": Expected at most " + budget
+            + " SQL statements - Actual was: " + statements);
+    }
+}
@@ -13,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.SpringApplication;
 import org.springframework.context.ApplicationContext;
 
+import com.example.entity.Message;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 public class UpdateMessageTest {
@@ -123,4 +124,100 @@ public class UpdateMessageTest {
         int status = response.statusCode();
         Assertions.assertEquals(400, status, "Expected Status Code 400 - Actual Code was: " + status);
     }
+
+    /**
+     * Sending an http request to GET localhost:8080/messages/9999, then PATCH localhost:8080/messages/9999, 
+     * then GET localhost:8080/messages/9999 again (the first read caches the message)
+     * 
+     * Expected Response:
+     *  Status Code: 200
+     *  Response Body: the second read contains the updated message_text
+     */
+    @Test
+    public void updateMessageVisibleToNextRead() throws IOException, InterruptedException {
+        HttpRequest getMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .build();
+        HttpResponse<String> response = webClient.send(getMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+
+    	String json = "{\"message_text\": \"text changed\"}";
+        HttpRequest patchMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        response = webClient.send(patchMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+
+        response = webClient.send(getMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        Message expectedResult = new Message(9999, 9999, "text changed", 1669947792L);
+        Message actualResult = objectMapper.readValue(response.body().toString(), Message.class);
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+    }
+
+    /**
+     * Sending an http request to PATCH localhost:8080/messages/9999 with the ETag of the message from
+     * GET localhost:8080/messages/9999 in If-Match, then again with the same, now stale, ETag
+     *
+     * Expected Response:
+     *  Status Code: 200 with the new ETag, then 409 with the ETag of the current version. A retry with that ETag
+     *               succeeds, and the message has the text of the retry.
+     */
+    @Test
+    public void updateMessageIfMatch() throws IOException, InterruptedException {
+        HttpRequest getMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .build();
+        HttpResponse<String> response = webClient.send(getMessageRequest, HttpResponse.BodyHandlers.ofString());
+        String eTag = response.headers().firstValue("ETag").orElse(null);
+        Assertions.assertNotNull(eTag, "Expected an ETag header");
+
+        response = patchIfMatch("first writer", eTag);
+        int status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+        String newETag = response.headers().firstValue("ETag").orElse(null);
+        Assertions.assertNotEquals(eTag, newETag);
+
+        response = patchIfMatch("second writer", eTag);
+        status = response.statusCode();
+        Assertions.assertEquals(409, status, "Expected Status Code 409 - Actual Code was: " + status);
+        Assertions.assertEquals(newETag, response.headers().firstValue("ETag").orElse(null));
+
+        response = patchIfMatch("second writer", newETag);
+        status = response.statusCode();
+        Assertions.assertEquals(200, status, "Expected Status Code 200 - Actual Code was: " + status);
+
+        response = webClient.send(getMessageRequest, HttpResponse.BodyHandlers.ofString());
+        Message expectedResult = new Message(9999, 9999, "second writer", 1669947792L);
+        Message actualResult = objectMapper.readValue(response.body().toString(), Message.class);
+        Assertions.assertEquals(expectedResult, actualResult, "Expected="+expectedResult + ", Actual="+actualResult);
+        Assertions.assertEquals(response.headers().firstValue("ETag").orElse(null),
+            patchIfMatch("unchanged", "\"9999-0\"").headers().firstValue("ETag").orElse(null));
+    }
+
+    /**
+     * Sending an http request to PATCH localhost:8080/messages/9999 with an If-Match header that is not an ETag of
+     * that message
+     *
+     * Expected Response:
+     *  Status Code: 400
+     */
+    @Test
+    public void updateMessageIfMatchMalformed() throws IOException, InterruptedException {
+        HttpResponse<String> response = patchIfMatch("text changed", "\"9998-0\"");
+        int status = response.statusCode();
+        Assertions.assertEquals(400, status, "Expected Status Code 400 - Actual Code was: " + status);
+    }
+
+    private HttpResponse<String> patchIfMatch(String text, String eTag) throws IOException, InterruptedException {
+        HttpRequest patchMessageRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/messages/9999"))
+                .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"message_text\": \"" + text + "\"}"))
+                .header("Content-Type", "application/json")
+                .header("If-Match", eTag)
+                .build();
+        return webClient.send(patchMessageRequest, HttpResponse.BodyHandlers.ofString());
+    }
 }
@@ -0,0 +1,73 @@
+package com.example;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+
+public class UserLoginOverloadTest {
+	ApplicationContext app;
+    HttpClient webClient;
+
+    /**
+     * Before every test, reset the database and restart the app with a password hashing pool of one thread 
+     * and a queue of one task, and create a new webClient for interacting locally on the web.
+     * @throws InterruptedException
+     */
+    @BeforeEach
+    public void setUp() throws InterruptedException {
+        webClient = HttpClient.newHttpClient();
+        String[] args = new String[] { "--app.password.threads=1", "--app.password.queue-capacity=1" };
+        app = SpringApplication.run(SocialMediaApp.class, args);
+        Thread.sleep(500);
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+    	Thread.sleep(500);
+    	SpringApplication.exit(app);
+    }
+
+    /**
+     * Sending 16 concurrent http requests to POST localhost:8080/login while only two can be verified or queued
+     * 
+     * Expected Response:
+     * 	Status Code: 200 for the logins that were verified, 503 for the rest
+     */
+    @Test
+    public void loginOverloaded() {
+    	String json = "{\"username\":\"testuser1\",\"password\":\"password\"}";
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/login"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for(int i = 0; i < 16; i++) {
+            responses.add(webClient.sendAsync(postRequest, HttpResponse.BodyHandlers.ofString()));
+        }
+        int ok = 0;
+        int unavailable = 0;
+        for(CompletableFuture<HttpResponse<String>> response : responses) {
+            int status = response.join().statusCode();
+            Assertions.assertTrue(status == 200 || status == 503, "Expected Status Code 200 or 503 - Actual Code was: " + status);
+            if(status == 200) {
+                ok++;
+            } else {
+                unavailable++;
+            }
+        }
+        Assertions.assertTrue(ok > 0, "Expected some logins to succeed");
+        Assertions.assertTrue(unavailable > 0, "Expected some logins to be rejected with 503");
+    }
+}
@@ -104,4 +104,73 @@ public class UserLoginTest {
         int status = response.statusCode();
         Assertions.assertEquals(401, status, "Expected Status Code 401 - Actual Code was: " + status);
     }
+
+    /**
+     * Sending http requests to POST localhost:8080/login with an invalid username and with an invalid password
+     * for an existing username, three times each
+     * 
+     * Expected Response:
+     * 	Status Code: 401 for all
+     *  The fastest rejection of the unknown username takes at least half as long as the fastest rejection of the
+     *  wrong password, because both verify a password hash
+     */
+    @Test
+    public void loginInvalidUsernameTakesAsLong() throws IOException, InterruptedException {
+        long unknownUsername = Long.MAX_VALUE;
+        long wrongPassword = Long.MAX_VALUE;
+        for(int i = 0; i < 3; i++) {
+            unknownUsername = Math.min(unknownUsername, timeLogin("{\"username\":\"testuser404\",\"password\":\"password\"}"));
+            wrongPassword = Math.min(wrongPassword, timeLogin("{\"username\":\"testuser1\",\"password\":\"pass404\"}"));
+        }
+        Assertions.assertTrue(unknownUsername * 2 >= wrongPassword, "Expected similar times - unknown username took "
+            + unknownUsername / 1_000_000 + "ms, wrong password took " + wrongPassword / 1_000_000 + "ms");
+    }
+
+    private long timeLogin(String json) throws IOException, InterruptedException {
+        HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/login"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        long start = System.nanoTime();
+        HttpResponse<String> response = webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+        long elapsed = System.nanoTime() - start;
+        int status = response.statusCode();
+        Assertions.assertEquals(401, status, "Expected Status Code 401 - Actual Code was: " + status);
+        return elapsed;
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/login with an invalid password, then POST localhost:8080/register 
+     * and POST localhost:8080/login for a new user (the first login finds no such user)
+     * 
+     * Expected Response:
+     * 	Status Code: 401 before the user is registered, 200 after
+     */
+    @Test
+    public void loginAfterRegister() throws IOException, InterruptedException {
+    	String json = "{\"username\":\"newuser\",\"password\":\"password\"}";
+        HttpRequest loginRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/login"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(loginRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(401, response.statusCode(), "Expected Status Code 401 - Actual Code was: " + response.statusCode());
+
+        HttpRequest registerRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        response = webClient.send(registerRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        Account registered = objectMapper.readValue(response.body().toString(), Account.class);
+
+        response = webClient.send(loginRequest, HttpResponse.BodyHandlers.ofString());
+        Assertions.assertEquals(200, response.statusCode(), "Expected Status Code 200 - Actual Code was: " + response.statusCode());
+        Account expectedResult = new Account(registered.getAccount_id(), "newuser", "password");
+        Account actualResult = objectMapper.readValue(response.body().toString(), Account.class);
+        Assertions.assertEquals(expectedResult, actualResult);
+    }
 }
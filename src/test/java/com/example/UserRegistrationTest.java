@@ -13,6 +13,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.SpringApplication;
 import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -83,4 +84,45 @@ public class UserRegistrationTest {
         Assertions.assertEquals(200, status1, "Expected Status Code 200 - Actual Code was: " + status1);
         Assertions.assertEquals(409, status2, "Expected Status Code 409 - Actual Code was: " + status2);
     }
+
+    /**
+     * Sending an http request to POST localhost:8080/register with the username of a test account, which is not 
+     * cached yet, so the duplicate is only detected by the unique index on username
+     * 
+     * Expected Response:
+     *  Status Code: 409
+     */
+    @Test
+    public void registerUserDuplicateUsernameInDatabase() throws IOException, InterruptedException {
+    	String json = "{\"username\":\"testuser1\",\"password\":\"password\"}";
+    	HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(409, status, "Expected Status Code 409 - Actual Code was: " + status);
+    }
+
+    /**
+     * Sending an http request to POST localhost:8080/register with a new username, after moving account_seq back 
+     * onto the ids of the test accounts, so the generated account_id is already taken
+     * 
+     * Expected Response:
+     *  Status Code: 500
+     */
+    @Test
+    public void registerUserAccountIdTaken() throws IOException, InterruptedException {
+        app.getBean(JdbcTemplate.class).execute("alter sequence account_seq restart with 9996");
+    	String json = "{\"username\":\"unlucky\",\"password\":\"password\"}";
+    	HttpRequest postRequest = HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:8080/register"))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .build();
+        HttpResponse<String> response = webClient.send(postRequest, HttpResponse.BodyHandlers.ofString());
+        int status = response.statusCode();
+        Assertions.assertEquals(500, status, "Expected Status Code 500 - Actual Code was: " + status);
+    }
 }